@@ -0,0 +1,134 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Measures how much drawing the dashboard slows the simulation down. Runs the live
+ * simulation's tick (dequeue, open or close halls, draw arrivals, admit them) for a
+ * full 10:45 AM to 3:00 PM day as fast as it can, three ways:
+ *   headless   no drawing at all
+ *   redraw     the old synchronous full-screen redraw inside the tick
+ *   renderer   capture a frame and submit it to DashboardRenderer
+ * Output goes to a sink throttled to a slow terminal's speed (50 KB/s by default),
+ * which blocks the writer just as a real terminal would.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out DashboardBench [days per mode] [terminal bytes/sec]
+ */
+public class DashboardBench {
+    private static final long DAY_END = 15_300_000L;    // 3:00 PM, in ms after 10:45 AM
+    private static final long TICK = 60_000;            // One simulated minute
+    private static final int ARRIVALS = 20;             // Diners per tick, as in the live simulation
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int bytesPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        SlowTerminal terminal = new SlowTerminal(bytesPerSecond);
+        PrintStream out = new PrintStream(terminal, false);
+
+        System.out.printf("%d days of %d ticks per mode, terminal at %,d bytes/sec%n",
+            days, DAY_END / TICK + 1, bytesPerSecond);
+        System.out.printf("%-10s %12s %14s %10s %10s %12s%n", "mode", "ms per day", "ticks/sec", "drawn", "dropped", "bytes");
+        for (int round = 0; round < 2; round++) {   // The second round is warmed up
+            for (String mode : new String[] {"headless", "redraw", "renderer"}) {
+                terminal.bytes = 0;
+                DashboardRenderer renderer = mode.equals("renderer") ? new DashboardRenderer(out, DashboardRenderer.DEFAULT_FPS) : null;
+                long ticks = 0;
+                long start = System.nanoTime();
+                for (int day = 0; day < days; day++) ticks += runDay(mode, out, renderer);
+                long elapsed = System.nanoTime() - start;
+                long drawn = mode.equals("redraw") ? ticks : 0;
+                long dropped = 0;
+                if (renderer != null) {
+                    renderer.close();   // Not timed: the simulation never waits for this
+                    drawn = renderer.getRendered();
+                    dropped = renderer.getDropped();
+                }
+                System.out.printf("%-10s %12.1f %,14.0f %,10d %,10d %,12d%n", mode, elapsed / 1e6 / days,
+                    ticks / (elapsed / 1e9), drawn, dropped, terminal.bytes);
+            }
+        }
+    }
+
+    /**
+     * Runs one simulated day and returns the number of ticks.
+     */
+    private static long runDay(String mode, PrintStream out, DashboardRenderer renderer) {
+        List<DiningHall> halls = Program.createDiningHalls(null, OccupancyEngine.RING);
+        Map<DiningHall, Long> opening = Program.openingTimes(halls);
+        Map<DiningHall, Long> closing = Program.closingTimes(halls);
+        HallSampler sampler = new HallSampler(halls);
+        SplittableRandom random = new SplittableRandom(1);
+        int[] cohort = new int[halls.size()];
+        long ticks = 0;
+        for (long time = 0; time <= DAY_END; time += TICK) {
+            for (DiningHall dh : halls) {
+                dh.dequeueUsers(time);
+                boolean open = time >= opening.getOrDefault(dh, Long.MAX_VALUE) && time < closing.getOrDefault(dh, Long.MAX_VALUE);
+                dh.updateStatus(open ? "open" : "closed");
+            }
+            sampler.update(time);
+            sampler.distribute(ARRIVALS, random, cohort);
+            for (int i = 0; i < cohort.length; i++) {
+                if (cohort[i] > 0) halls.get(i).enqueueBatch(cohort[i], time);
+            }
+            String clock = Program.convertTo12hrClock(time);
+            if (mode.equals("redraw")) redraw(out, halls, clock, time);
+            else if (mode.equals("renderer")) renderer.submit(DashboardRenderer.capture(halls, clock, time));
+            ticks++;
+        }
+        return ticks;
+    }
+
+    /**
+     * The synchronous full-screen redraw the simulation used before DashboardRenderer:
+     * clear the screen, format every row, and write it all from the tick.
+     */
+    private static void redraw(PrintStream out, List<DiningHall> halls, String currentTime, long simTime) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\033[H\033[2J");
+        sb.append("Dining Hall Dashboard\n");
+        sb.append("----------------------\n");
+        sb.append("Current Time: ").append(currentTime).append("\n\n");
+        sb.append(String.format("%-12s | %-10s | %-11s | %s\n", "Hall", "Status", "Diners", "Wait Time"));
+        sb.append("-------------|------------|-------------|-----------------\n");
+        for (DiningHall dh : halls) {
+            String status = dh.getStatus();
+            if (!status.equals("closed")) status = dh.updateStatus("open");
+            long wait = status.equals("closed") ? 0 : dh.getWaitTime(simTime);
+            sb.append(String.format("%-12s | %-10s | %4d/%-5d  | %s\n",
+                dh.getName(), status, dh.getOccupancy(), dh.getMaxSize(), Program.formatMillis(wait)));
+        }
+        out.print(sb);
+        out.flush();
+    }
+
+    /**
+     * Discards output, but holds the writer for as long as a terminal of the given
+     * speed would take to show it.
+     */
+    private static final class SlowTerminal extends OutputStream {
+        private final long nanosPerByte;
+        private volatile long bytes;    // Bytes written since the counter was reset
+
+        SlowTerminal(int bytesPerSecond) {
+            this.nanosPerByte = 1_000_000_000L / bytesPerSecond;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            long until = System.nanoTime() + len * nanosPerByte;
+            while (System.nanoTime() < until) LockSupport.parkNanos(until - System.nanoTime());
+        }
+    }
+}
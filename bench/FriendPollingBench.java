@@ -0,0 +1,194 @@
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Stress test and throughput benchmark for ConcurrentFriendPollingSystem.
+ *
+ * Stress: threads mix check-ins, friendships and reads on one shared system. Each
+ * thread checks in only the users it owns (so each user's final hall is the last one
+ * its owner chose), while every thread adds friendships and reads. Afterwards the
+ * result must match a sequential FriendPollingSystem replay of the same operations:
+ * every user's friends by hall, every hall's present count, and the friends at each
+ * hall for every 50th user. Invalid-hall attempts must match the counter, and moving
+ * the clock past every check-in's lifetime must empty every hall.
+ *
+ * Throughput: 90% getFriendsAtDiningHalls / 10% check-ins at 1, 4, 16 and 64 threads,
+ * against a FriendPollingSystem behind one lock.
+ * Exits with status 1 if any check fails.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out FriendPollingBench [stress users] [ops per thread] [seconds per run]
+ */
+public class FriendPollingBench {
+    private static final int[] THREADS = {1, 4, 16, 64};
+    private static final String[] HALLS = FriendPollingSystem.VALID_DINING_HALLS.toArray(new String[0]);
+    private static final String INVALID = "Nowhere";
+
+    public static void main(String[] args) throws InterruptedException {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 30_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+
+        boolean ok = true;
+        for (int threads : new int[] {16, 64}) ok &= stress(userCount, threads, ops);
+
+        System.out.printf("%nThroughput, 50k users, 90%% reads / 10%% check-ins (%d cores), M ops/s%n",
+            Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %14s %14s%n", "threads", "one lock", "concurrent");
+        for (int threads : THREADS) {
+            double locked = throughput(false, threads, seconds);
+            double concurrent = throughput(true, threads, seconds);
+            System.out.printf("%-8d %14.2f %14.2f%n", threads, locked / 1e6, concurrent / 1e6);
+        }
+        if (!ok) System.exit(1);
+    }
+
+    /**
+     * Runs the mixed workload on many threads, then compares with a sequential replay.
+     */
+    private static boolean stress(int userCount, int threads, int ops) throws InterruptedException {
+        AtomicLong clock = new AtomicLong(1_000_000);
+        ConcurrentFriendPollingSystem system = new ConcurrentFriendPollingSystem(clock::get);
+        String[] names = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            names[i] = "user" + i;
+            system.addUser(names[i]);
+        }
+
+        List<List<int[]>> friendships = new ArrayList<>();   // Per thread: {a, b}
+        List<List<Object[]>> checkIns = new ArrayList<>();   // Per thread, in order: {user, hall or null}
+        long[] invalid = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            int self = t;
+            List<int[]> added = new ArrayList<>();
+            List<Object[]> moved = new ArrayList<>();
+            friendships.add(added);
+            checkIns.add(moved);
+            workers.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(self);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    int op = random.nextInt(100);
+                    if (op < 30) {  // Check one of this thread's users in, out, or into a bad hall
+                        int user = random.nextInt(userCount / threads) * threads + self;
+                        int pick = random.nextInt(HALLS.length + 2);
+                        String hall = pick < HALLS.length ? HALLS[pick] : pick == HALLS.length ? null : INVALID;
+                        system.setDiningHall(names[user], hall);
+                        if (INVALID.equals(hall)) invalid[self]++;
+                        else moved.add(new Object[] {user, hall});
+                    } else if (op < 40) {
+                        int a = random.nextInt(userCount);
+                        int b = random.nextInt(userCount);
+                        system.addFriendship(names[a], names[b]);
+                        added.add(new int[] {a, b});
+                    } else if (op < 80) {
+                        system.getFriendsAtDiningHalls(names[random.nextInt(userCount)]);
+                    } else if (op < 95) {
+                        system.getFriendsAt(names[random.nextInt(userCount)], HALLS[random.nextInt(HALLS.length)]);
+                    } else {
+                        system.getPresentCount(HALLS[random.nextInt(HALLS.length)]);
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+
+        FriendPollingSystem replay = new FriendPollingSystem(clock::get);
+        for (String name : names) replay.addUser(name);
+        for (List<int[]> added : friendships) {
+            for (int[] pair : added) replay.addFriendship(names[pair[0]], names[pair[1]]);
+        }
+        for (List<Object[]> moved : checkIns) {     // Each thread's users are its own, so threads can go in any order
+            for (Object[] move : moved) replay.setDiningHall(names[(Integer) move[0]], (String) move[1]);
+        }
+
+        int mismatches = 0;
+        for (int i = 0; i < userCount; i++) {
+            if (!system.getFriendsAtDiningHalls(names[i]).equals(replay.getFriendsAtDiningHalls(names[i]))) mismatches++;
+            if (!system.getFriendCountsByHall(names[i]).equals(replay.getFriendCountsByHall(names[i]))) mismatches++;
+            if (i % 50 != 0) continue;
+            for (String hall : HALLS) {
+                if (!system.getFriendsAt(names[i], hall).equals(replay.getFriendsAt(names[i], hall))) mismatches++;
+            }
+        }
+        for (String hall : HALLS) {
+            if (system.getPresentCount(hall) != replay.getPresentCount(hall)) mismatches++;
+        }
+        long attempts = Arrays.stream(invalid).sum();
+        boolean invalidOk = system.getInvalidHalls() == attempts;
+
+        clock.addAndGet(FriendPollingSystem.DEFAULT_TTL + 2_000);  // Every check-in has lapsed
+        system.setDiningHall(names[0], null);   // A write triggers the sweep
+        int left = 0;
+        for (String hall : HALLS) left += system.getPresentCount(hall);
+
+        boolean ok = mismatches == 0 && invalidOk && left == 0;
+        System.out.printf("Stress: %d threads x %,d ops: %d mismatches against the replay, invalid halls %d/%d, "
+            + "%d left after expiry (%d swept) - %s%n", threads, ops, mismatches, system.getInvalidHalls(), attempts,
+            left, system.getExpired(), ok ? "ok" : "FAILED");
+        return ok;
+    }
+
+    /**
+     * Measures operations per second shared across threads.
+     * @param concurrent true for ConcurrentFriendPollingSystem, false for FriendPollingSystem behind one lock
+     */
+    private static double throughput(boolean concurrent, int threads, int seconds) throws InterruptedException {
+        int userCount = 50_000;
+        InterfaceFriendPollingSystem system = concurrent ? new ConcurrentFriendPollingSystem() : new FriendPollingSystem();
+        String[] names = new String[userCount];
+        for (int i = 0; i < userCount; i++) {
+            names[i] = "user" + i;
+            system.addUser(names[i]);
+        }
+        SplittableRandom setup = new SplittableRandom(7);
+        for (int i = 0; i < userCount * 10; i++) {
+            system.addFriendship(names[setup.nextInt(userCount)], names[setup.nextInt(userCount)]);
+        }
+        for (int i = 0; i < userCount / 5; i++) {
+            system.setDiningHall(names[setup.nextInt(userCount)], HALLS[setup.nextInt(HALLS.length)]);
+        }
+
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        long[] done = new long[threads];
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int self = t;
+            workers.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(self);
+                long count = 0;
+                while ((count & 255) != 0 || System.nanoTime() < end) {
+                    String name = names[random.nextInt(userCount)];
+                    boolean write = random.nextInt(10) == 0;
+                    if (concurrent) {
+                        if (write) system.setDiningHall(name, HALLS[random.nextInt(HALLS.length)]);
+                        else system.getFriendsAtDiningHalls(name);
+                    } else {
+                        synchronized (system) {
+                            if (write) system.setDiningHall(name, HALLS[random.nextInt(HALLS.length)]);
+                            else system.getFriendsAtDiningHalls(name);
+                        }
+                    }
+                    count++;
+                }
+                done[self] = count;
+            }));
+        }
+        long begin = System.nanoTime();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) worker.join();
+        return Arrays.stream(done).sum() / ((System.nanoTime() - begin) / 1e9);
+    }
+}
@@ -0,0 +1,71 @@
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Microbenchmark of HallSampler's alias-table draw against Program.getPopularDiningHall
+ * (sum the popularity scores, then walk the cumulative total with a new Random each
+ * call). Also checks that both draw halls in proportion to popularity, and measures
+ * the per-tick cost and allocation of HallSampler.update when nothing has changed.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out HallSamplerBench [draws]
+ */
+public class HallSamplerBench {
+    public static void main(String[] args) {
+        int draws = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        Program program = new Program();
+        List<DiningHall> halls = Program.createDiningHalls(null, OccupancyEngine.RING);
+        for (DiningHall dh : halls) dh.updateStatus("open");    // getPopularDiningHall ignores status
+        HallSampler sampler = new HallSampler(halls);
+        sampler.update(0);
+        SplittableRandom random = new SplittableRandom(1);
+
+        int total = 0;
+        for (DiningHall dh : halls) total += dh.getPopularity();
+        int[] linear = new int[halls.size()];
+        int[] alias = new int[halls.size()];
+        Map<String, Integer> position = new HashMap<>();
+        for (int i = 0; i < halls.size(); i++) position.put(halls.get(i).getName(), i);
+        for (int i = 0; i < 1_000_000; i++) {
+            linear[position.get(program.getPopularDiningHall().getName())]++;
+            alias[sampler.sampleIndex(random)]++;
+        }
+        System.out.printf("%-10s %9s %9s %9s%n", "hall", "expected", "linear", "alias");
+        for (int i = 0; i < halls.size(); i++) {
+            System.out.printf("%-10s %8.2f%% %8.2f%% %8.2f%%%n", halls.get(i).getName(),
+                100.0 * halls.get(i).getPopularity() / total, linear[i] / 1e4, alias[i] / 1e4);
+        }
+
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {   // Later rounds are warmed up
+            long start = System.nanoTime();
+            for (int i = 0; i < draws; i++) sink += program.getPopularDiningHall().getPopularity();
+            double scan = (double) (System.nanoTime() - start) / draws;
+            start = System.nanoTime();
+            for (int i = 0; i < draws; i++) sink += sampler.sampleIndex(random);
+            double table = (double) (System.nanoTime() - start) / draws;
+            System.out.printf("Round %d: getPopularDiningHall %.1f ns, HallSampler %.1f ns per draw%n",
+                round + 1, scan, table);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long ticks = 1_000_000;
+        for (long t = 0; t < ticks; t++) sampler.update(t);     // Warm up
+        long rebuilds = sampler.getRebuilds();
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        for (long t = 0; t < ticks; t++) sampler.update(t);
+        double perTick = (double) (System.nanoTime() - start) / ticks;
+        allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocated;
+        System.out.printf("Unchanged update: %.1f ns per tick, %.2f bytes allocated per tick, %d rebuilds%n",
+            perTick, (double) allocated / ticks, sampler.getRebuilds() - rebuilds);
+
+        halls.get(0).updateStatus("closed");
+        System.out.println("After closing " + halls.get(0).getName() + ": rebuilt " + sampler.update(ticks)
+            + ", " + sampler.getOpenCount() + " halls open (checksum " + sink + ")");
+    }
+}
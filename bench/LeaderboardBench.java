@@ -0,0 +1,96 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Benchmark of the live per-hall Leaderboard against the sort-everything topDishes
+ * path (scan every user, average every dish, sort them all), plus a check that the
+ * two agree and a run of concurrent board reads while rating writes stream in.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out LeaderboardBench [users] [dishes] [seconds]
+ */
+public class LeaderboardBench {
+    private static final String[] HALLS = {"Hoch", "McConnel", "Collins", "Malott", "Frank", "Frary", "Oldenborg"};
+    private static final int TOP = 10;
+
+    public static void main(String[] args) throws InterruptedException {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int dishCount = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        RatingIndex index = new RatingIndex();
+        HashMap<Integer, User> users = new HashMap<>();
+        Random random = new Random(42);
+        for (int id = 0; id < userCount; id++) {
+            User user = new User(id, index);
+            for (int k = random.nextInt(11); k > 0; k--) {
+                user.rate(HALLS[random.nextInt(HALLS.length)], "Dish " + random.nextInt(dishCount), 1 + random.nextInt(5));
+            }
+            users.put(id, user);
+        }
+        List<DiningHall> scanned = new ArrayList<>();   // No index: topDishes scans and sorts
+        List<DiningHall> live = new ArrayList<>();      // Served from the leaderboard
+        for (String hall : HALLS) {
+            scanned.add(new DiningHall(hall, 500, 2_700_000, 3));
+            live.add(new DiningHall(hall, 500, 2_700_000, 3, index));
+        }
+
+        int mismatches = 0;
+        for (int h = 0; h < HALLS.length; h++) {
+            List<Map.Entry<String, Double>> expected = scanned.get(h).topDishes(TOP, users);
+            List<Map.Entry<String, Double>> actual = live.get(h).topDishes(TOP, users);
+            for (int i = 0; i < TOP; i++) {     // Ties may be listed in any order, so compare averages
+                if (Math.abs(expected.get(i).getValue() - actual.get(i).getValue()) > 1e-9) mismatches++;
+            }
+        }
+        System.out.println("Mismatched ranks against the scan: " + mismatches);
+
+        for (int round = 0; round < 3; round++) {   // Later rounds are warmed up
+            double scan = time(20, () -> scanned.forEach(dh -> dh.topDishes(TOP, users))) / HALLS.length;
+            double board = time(1_000_000, () -> live.forEach(dh -> dh.getLeaderboard().getView().getDish(0))) / HALLS.length;
+            System.out.printf("Round %d: sort-everything %.0f us, leaderboard read %.3f us (per hall)%n",
+                round + 1, scan / 1000, board / 1000);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        LongAdder reads = new LongAdder();
+        List<Thread> readers = new ArrayList<>();
+        for (DiningHall dh : live) {    // One reader per hall
+            Thread reader = new Thread(() -> {
+                long local = 0;
+                while (running.get()) {
+                    Leaderboard.View view = dh.getLeaderboard().getView();
+                    for (int i = 0; i < view.size(); i++) view.getAverage(i);
+                    local++;
+                }
+                reads.add(local);
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        long writes = 0;
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            users.get(random.nextInt(userCount))
+                .rate(HALLS[random.nextInt(HALLS.length)], "Dish " + random.nextInt(dishCount), 1 + random.nextInt(5));
+            writes++;
+        }
+        running.set(false);
+        for (Thread reader : readers) reader.join();
+        System.out.printf("Concurrent: %d rating writes and %d board reads by %d readers in %d s (%d cores)%n",
+            writes, reads.sum(), readers.size(), seconds, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Runs the task repeatedly and returns the mean time per run in nanoseconds.
+     */
+    private static double time(int runs, Runnable task) {
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) task.run();
+        return (double) (System.nanoTime() - start) / runs;
+    }
+}
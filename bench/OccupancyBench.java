@@ -0,0 +1,161 @@
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Stress test and throughput benchmark for the CONCURRENT occupancy engine
+ * (ConcurrentRingOccupancy).
+ *
+ * 1. Single thread: random arrivals, dequeues and time steps applied to both the
+ *    concurrent engine and RingOccupancy; size and wait time must match at every step.
+ * 2. Stress: producer threads check diners in while a ticker thread advances the
+ *    clock, dequeues, and reads size and wait time. Size must never go negative or
+ *    above the arrivals so far, and a final dequeue must empty the hall.
+ * 3. Throughput: check-ins per second from 1..N threads, against a RING engine behind
+ *    one lock. Each thread also reads the wait time every 64 check-ins.
+ * Exits with status 1 if any check fails.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out OccupancyBench [threads,...] [check-ins per run]
+ */
+public class OccupancyBench {
+    private static final long MEAL = 45 * 60_000L;  // Simulated meal length (in ms)
+    private static final int SEATS = 500;
+
+    public static void main(String[] args) throws InterruptedException {
+        int[] threads = args.length > 0
+            ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+            : new int[] {1, 2, 4, 8, 16};
+        int checkIns = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        boolean ok = matchesRing(200_000);
+        for (int n : threads) ok &= stress(n, 200_000);
+
+        System.out.printf("Cores: %d%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %18s %18s%n", "threads", "synchronized RING", "CONCURRENT");
+        for (int n : threads) {
+            double ring = throughput(n, checkIns, false);
+            double striped = throughput(n, checkIns, true);
+            System.out.printf("%-8d %17.1fM %17.1fM%n", n, ring / 1e6, striped / 1e6);
+        }
+        if (!ok) System.exit(1);
+    }
+
+    /**
+     * Replays one random sequence on both engines and compares them after every step.
+     */
+    private static boolean matchesRing(int steps) {
+        RingOccupancy ring = new RingOccupancy(MEAL);
+        ConcurrentRingOccupancy striped = new ConcurrentRingOccupancy(MEAL);
+        Random random = new Random(1);
+        long time = 0;
+        for (int i = 0; i < steps; i++) {
+            time += random.nextInt(30_000);
+            if (random.nextInt(4) == 0) {
+                ring.dequeue(time);
+                striped.dequeue(time);
+            } else {
+                int count = 1 + random.nextInt(5);
+                ring.enqueueBatch(count, time);
+                striped.enqueueBatch(count, time);
+            }
+            if (ring.size() != striped.size() || ring.getWaitTime(time, SEATS) != striped.getWaitTime(time, SEATS)) {
+                System.out.println("Single thread: mismatch at step " + i + " (size " + ring.size() + " vs " + striped.size() + ")");
+                return false;
+            }
+        }
+        System.out.println("Single thread: " + steps + " steps matched RingOccupancy");
+        return true;
+    }
+
+    /**
+     * Runs producers against a ticker thread and checks the invariants.
+     */
+    private static boolean stress(int producers, int perProducer) throws InterruptedException {
+        ConcurrentRingOccupancy occupancy = new ConcurrentRingOccupancy(MEAL);
+        AtomicLong clock = new AtomicLong();
+        AtomicLong arrived = new AtomicLong();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicBoolean ok = new AtomicBoolean(true);
+
+        Thread ticker = new Thread(() -> {
+            while (running.get()) {
+                long now = clock.addAndGet(1_000);
+                occupancy.dequeue(now);
+                int size = occupancy.size();
+                occupancy.getWaitTime(now, SEATS);
+                if (size < 0 || size > arrived.get()) {
+                    System.out.println("Stress: size " + size + " with " + arrived.get() + " arrivals");
+                    ok.set(false);
+                }
+                Thread.yield();
+            }
+        });
+        List<Thread> workers = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    arrived.incrementAndGet();  // Count first, so size never runs ahead of it
+                    occupancy.enqueueBatch(1, clock.get());
+                }
+            }));
+        }
+        ticker.start();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) worker.join();
+        running.set(false);
+        ticker.join();
+
+        occupancy.dequeue(clock.get() + 2 * MEAL);     // Everyone has finished by now
+        if (occupancy.size() != 0) {
+            System.out.println("Stress: " + occupancy.size() + " diners left after everyone finished");
+            ok.set(false);
+        }
+        System.out.printf("Stress: %d producers, %d check-ins, %s%n",
+            producers, arrived.get(), ok.get() ? "invariants held" : "FAILED");
+        return ok.get();
+    }
+
+    /**
+     * Measures check-ins per second shared across threads.
+     * @param concurrent true for CONCURRENT, false for RING behind one lock
+     */
+    private static double throughput(int threads, int checkIns, boolean concurrent) throws InterruptedException {
+        InterfaceOccupancy occupancy = (concurrent ? OccupancyEngine.CONCURRENT : OccupancyEngine.RING).create(MEAL);
+        AtomicLong clock = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        int perThread = checkIns / threads;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 1; i <= perThread; i++) {
+                    if (concurrent) {
+                        long now = (i & 1023) == 0 ? clock.addAndGet(60_000) : clock.get();
+                        occupancy.enqueueBatch(1, now);
+                        if ((i & 63) == 0) occupancy.getWaitTime(now, SEATS);
+                    } else {
+                        synchronized (occupancy) {  // Read the clock under the lock so times never go backwards
+                            long now = (i & 1023) == 0 ? clock.addAndGet(60_000) : clock.get();
+                            occupancy.enqueueBatch(1, now);
+                            if ((i & 63) == 0) occupancy.getWaitTime(now, SEATS);
+                        }
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) worker.join();
+        return (double) perThread * threads / ((System.nanoTime() - begin) / 1e9);
+    }
+}
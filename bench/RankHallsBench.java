@@ -0,0 +1,148 @@
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Latency benchmark for FriendPollingSystem.rankHallsByNetwork on a large random
+ * network with a few hub users, checked against a plain HashSet two-hop search.
+ *
+ * The system runs on a manual clock, so each timed query can step the clock past the
+ * ranking cache's lifetime and measure a real search. Check-ins are given a lifetime
+ * long enough that stepping the clock never expires them.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -Xmx2g -cp out RankHallsBench [users] [friendships] [hubs] [hub friends]
+ */
+public class RankHallsBench {
+    private static final long CACHE_TTL = 2000;     // FriendPollingSystem's ranking lifetime (in ms)
+    private static final long FOREVER = Long.MAX_VALUE / 4;     // Check-in lifetime that never runs out here
+    private static final int QUERIES = 2000;
+
+    public static void main(String[] args) {
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        int friendships = args.length > 1 ? Integer.parseInt(args[1]) : 3_000_000;
+        int hubCount = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int hubFriends = args.length > 3 ? Integer.parseInt(args[3]) : 1_500;
+
+        AtomicLong clock = new AtomicLong();
+        FriendPollingSystem fps = new FriendPollingSystem(clock::get);
+        String[] names = new String[userCount];
+        List<Set<Integer>> reference = new ArrayList<>(userCount);     // User -> friends, for checking
+        for (int i = 0; i < userCount; i++) {
+            names[i] = "user" + i;
+            fps.addUser(names[i]);
+            reference.add(new HashSet<>());
+        }
+        Random random = new Random(42);
+        int[] hubs = new int[hubCount];
+        for (int h = 0; h < hubCount; h++) {
+            hubs[h] = random.nextInt(userCount);
+            for (int k = 0; k < hubFriends; k++) befriend(fps, reference, names, hubs[h], random.nextInt(userCount));
+        }
+        for (int e = 0; e < friendships; e++) {
+            befriend(fps, reference, names, random.nextInt(userCount), random.nextInt(userCount));
+        }
+        fps.compactFriendships();
+        int[][] friendsOf = new int[userCount][];   // Compact copy, so the sets can be collected before timing
+        for (int i = 0; i < userCount; i++) {
+            friendsOf[i] = reference.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        reference = null;
+        System.out.printf("%,d users, %,d friendships, %d hubs with %,d+ friends%n",
+            userCount, fps.getFriendshipCount(), hubCount, hubFriends);
+
+        String[] halls = FriendPollingSystem.VALID_DINING_HALLS.toArray(new String[0]);
+        int checkedIn = 0;
+        int[] hallOf = new int[userCount];  // Reference copy of who is where
+        Arrays.fill(hallOf, -1);
+        for (int target : new int[] {500, 20_000}) {
+            while (checkedIn < target) {
+                int user = random.nextInt(userCount);
+                if (hallOf[user] >= 0) continue;
+                hallOf[user] = random.nextInt(halls.length);
+                fps.setDiningHall(names[user], halls[hallOf[user]], FOREVER);
+                checkedIn++;
+            }
+
+            int mismatches = 0;
+            for (int i = 0; i < 300; i++) {
+                int user = i < 100 ? hubs[i % hubCount] : random.nextInt(userCount);
+                clock.addAndGet(CACHE_TTL + 1);
+                if (!matches(fps.rankHallsByNetwork(names[user]), user, friendsOf, hallOf, halls)) mismatches++;
+            }
+            System.out.printf("%n%,d users checked in: %d of 300 rankings differ from the HashSet search%n",
+                checkedIn, mismatches);
+
+            for (int round = 0; round < 5; round++) {   // Later rounds are warmed up (JIT shares the core in small sandboxes)
+                long[] hub = new long[QUERIES];
+                long[] mixed = new long[QUERIES];
+                for (int q = 0; q < QUERIES; q++) {
+                    clock.addAndGet(CACHE_TTL + 1);     // Every hub query misses the cache
+                    String name = names[hubs[random.nextInt(hubCount)]];
+                    long start = System.nanoTime();
+                    fps.rankHallsByNetwork(name);
+                    hub[q] = System.nanoTime() - start;
+                }
+                for (int q = 0; q < QUERIES; q++) {
+                    if (q % 100 == 0) clock.addAndGet(CACHE_TTL + 1);   // Cache lives for 100 queries
+                    String name = names[random.nextInt(10) == 0 ? hubs[random.nextInt(hubCount)] : random.nextInt(1000)];
+                    long start = System.nanoTime();
+                    fps.rankHallsByNetwork(name);
+                    mixed[q] = System.nanoTime() - start;
+                }
+                System.out.printf("Round %d: hub users (uncached) p50 %s p99 %s max %s | mixed p50 %s p99 %s%n",
+                    round + 1, micros(hub, 0.50), micros(hub, 0.99), micros(hub, 1.0), micros(mixed, 0.50), micros(mixed, 0.99));
+            }
+        }
+        System.out.printf("%nCache: %d hits, %d misses%n", fps.getRankingHits(), fps.getRankingMisses());
+    }
+
+    private static void befriend(FriendPollingSystem fps, List<Set<Integer>> reference, String[] names, int a, int b) {
+        if (a == b) return;
+        fps.addFriendship(names[a], names[b]);
+        reference.get(a).add(b);
+        reference.get(b).add(a);
+    }
+
+    /**
+     * Compares a ranking with a HashSet two-hop search.
+     */
+    private static boolean matches(List<FriendPollingSystem.HallActivity> ranking, int user,
+                                   int[][] friendsOf, int[] hallOf, String[] halls) {
+        int[] friends = new int[halls.length];
+        int[] others = new int[halls.length];
+        Set<Integer> seen = new HashSet<>();
+        seen.add(user);
+        for (int friend : friendsOf[user]) {
+            seen.add(friend);
+            if (hallOf[friend] >= 0) friends[hallOf[friend]]++;
+        }
+        for (int friend : friendsOf[user]) {
+            for (int other : friendsOf[friend]) {
+                if (seen.add(other) && hallOf[other] >= 0) others[hallOf[other]]++;
+            }
+        }
+        int expected = 0;
+        for (int h = 0; h < halls.length; h++) {
+            if (friends[h] + others[h] > 0) expected++;
+        }
+        if (ranking.size() != expected) return false;
+        for (FriendPollingSystem.HallActivity activity : ranking) {
+            int h = Arrays.asList(halls).indexOf(activity.getHall());
+            if (activity.getFriends() != friends[h] || activity.getFriendsOfFriends() != others[h]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Formats a percentile of the samples in microseconds.
+     */
+    private static String micros(long[] samples, double percentile) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return String.format("%.0fus", sorted[Math.max(0, index)] / 1000.0);
+    }
+}
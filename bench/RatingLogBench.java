@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Throughput benchmark for RatingLog under each FsyncPolicy. One thread logs a
+ * sustained stream of ratings (pausing briefly every 1000, like bursts of users) and
+ * the clock stops when flush() returns, so every record is on disk. Also measures a
+ * plain write + fsync per record for comparison. Each log is then replayed and must
+ * give back every record.
+ * Exits with status 1 if a replay comes up short.
+ *
+ * The logs are written to a temporary directory (pass another to measure a different
+ * disk) and deleted afterwards.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -cp out RatingLogBench [records] [directory]
+ */
+public class RatingLogBench {
+    private static final String[] HALLS = {"Hoch", "McConnel", "Collins", "Malott", "Frank", "Frary", "Oldenborg"};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        Path dir = args.length > 1 ? Files.createTempDirectory(Path.of(args[1]), "ratinglog")
+                                   : Files.createTempDirectory("ratinglog");
+
+        boolean ok = true;
+        System.out.printf("%,d records, short pause every 1000%n", records);
+        System.out.printf("%-10s %14s %10s %8s%n", "policy", "records/sec", "commits", "fsyncs");
+        for (int round = 0; round < 2; round++) {   // The second round is warmed up
+            for (RatingLog.FsyncPolicy policy : RatingLog.FsyncPolicy.values()) {
+                String csv = dir.resolve(policy + "-" + round + ".csv").toString();
+                RatingLog log = new RatingLog(csv, policy);
+                long now = System.currentTimeMillis();
+                long start = System.nanoTime();
+                for (int i = 0; i < records; i++) {
+                    log.logRating(i % 5_000, HALLS[i % HALLS.length], "Dish " + (i % 1_500), 1 + i % User.MAX_RATING, now);
+                    if (i % 1000 == 999) Thread.sleep(1);
+                }
+                log.flush();
+                double perSecond = records / ((System.nanoTime() - start) / 1e9);
+                System.out.printf("%-10s %,14.0f %,10d %,8d%n", policy, perSecond, log.getCommits(), log.getSyncs());
+                log.close();
+
+                try (RatingLog reopened = new RatingLog(csv, RatingLog.FsyncPolicy.NEVER)) {
+                    long replayed = reopened.replay(new HashMap<>(), null);
+                    if (replayed != records) {
+                        System.out.println("Replay of " + policy + " gave " + replayed + " records");
+                        ok = false;
+                    }
+                }
+            }
+        }
+
+        int synced = Math.min(records, 5_000);
+        Path plain = dir.resolve("plain.log");
+        try (FileChannel channel = FileChannel.open(plain, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer record = ByteBuffer.allocate(40);
+            long start = System.nanoTime();
+            for (int i = 0; i < synced; i++) {
+                record.clear();
+                record.putInt(i).put("Frary Dish 1".getBytes(StandardCharsets.UTF_8)).flip();
+                channel.write(record);
+                channel.force(false);
+            }
+            System.out.printf("%-10s %,14.0f  (write + fsync per record, %,d records)%n",
+                "plain", synced / ((System.nanoTime() - start) / 1e9), synced);
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) Files.delete(file);
+        }
+        Files.delete(dir);
+        if (!ok) System.exit(1);
+    }
+}
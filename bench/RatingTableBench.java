@@ -0,0 +1,159 @@
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Benchmark of RatingTable's columnar aggregations against a walk over the
+ * HashMap<Integer, User> that Program keeps. Loads random ratings, then removes and
+ * replaces some so the users' arrays are not in load order. Each aggregate must match
+ * the walk. The table is timed both with its build from the users (a one-off report)
+ * and on its own (several reports from one table).
+ * Exits with status 1 if any aggregate differs.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -Xmx2g -cp out RatingTableBench [ratings] [users] [dishes]
+ */
+public class RatingTableBench {
+    private static final String[] HALLS = {"Hoch", "McConnel", "Collins", "Malott", "Frank", "Frary", "Oldenborg"};
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int dishCount = args.length > 2 ? Integer.parseInt(args[2]) : 1_500;
+
+        int[] hallIds = new int[HALLS.length];
+        for (int h = 0; h < HALLS.length; h++) hallIds[h] = SymbolTable.HALLS.intern(HALLS[h]);
+        int[] dishIds = new int[dishCount];
+        for (int d = 0; d < dishCount; d++) dishIds[d] = SymbolTable.DISHES.intern("Dish " + d);
+
+        HashMap<Integer, User> users = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < ratings; i++) {
+            users.computeIfAbsent(random.nextInt(userCount), User::new)
+                .rate(hallIds[random.nextInt(HALLS.length)], dishIds[random.nextInt(dishCount)], 1 + random.nextInt(User.MAX_RATING), 0);
+        }
+        for (int i = 0; i < ratings / 20; i++) {    // Some deletes, some replacements
+            User user = users.get(random.nextInt(userCount));
+            if (user == null) continue;
+            String hall = HALLS[random.nextInt(HALLS.length)];
+            String dish = "Dish " + random.nextInt(dishCount);
+            if (random.nextBoolean()) user.removeRating(hall, dish);
+            else user.rate(hall, dish, 1 + random.nextInt(User.MAX_RATING));
+        }
+        RatingTable table = new RatingTable(users.values());
+        System.out.printf("%,d users, %,d ratings, %d halls, %,d dishes (columns: %.1f MB)%n",
+            users.size(), table.size(), HALLS.length, dishCount, (table.size() * 9L + users.size() * 8L) / 1e6);
+
+        boolean ok = Arrays.deepEquals(table.histogram(RatingTable.GroupBy.HALL, false), walkHistogram(users, true))
+            && Arrays.deepEquals(table.histogram(RatingTable.GroupBy.DISH, false), walkHistogram(users, false))
+            && Arrays.deepEquals(table.histogram(RatingTable.GroupBy.DISH, true), walkHistogram(users, false))
+            && Arrays.equals(table.averages(RatingTable.GroupBy.HALL), walkAverages(users, true))
+            && Arrays.equals(table.averages(RatingTable.GroupBy.DISH), walkAverages(users, false))
+            && Arrays.deepEquals(table.countByUser(), walkCounts(users));
+        System.out.println("Aggregates " + (ok ? "match the HashMap<Integer, User> walk" : "DIFFER from the walk"));
+
+        System.out.printf("%n%-20s %10s %14s %14s%n", "(ms)", "walk", "build + table", "table only");
+        long sink = 0;
+        for (int round = 0; round < 5; round++) {   // Later rounds are warmed up
+            long start = System.nanoTime();
+            sink += walkHistogram(users, true)[0].length;
+            double walk = millis(start);
+            start = System.nanoTime();
+            RatingTable fresh = new RatingTable(users.values());
+            sink += fresh.histogram(RatingTable.GroupBy.HALL, false)[0].length;
+            double built = millis(start);
+            start = System.nanoTime();
+            sink += table.histogram(RatingTable.GroupBy.HALL, false)[0].length;
+            double only = millis(start);
+            System.out.printf("%-20s %10.1f %14.1f %14.1f%n", "histogram by hall", walk, built, only);
+
+            start = System.nanoTime();
+            sink += walkAverages(users, false).length;
+            walk = millis(start);
+            start = System.nanoTime();
+            sink += table.averages(RatingTable.GroupBy.DISH).length;
+            only = millis(start);
+            System.out.printf("%-20s %10.1f %14s %14.1f%n", "averages by dish", walk, "", only);
+
+            start = System.nanoTime();
+            sink += walkCounts(users)[0].length;
+            walk = millis(start);
+            start = System.nanoTime();
+            sink += table.countByUser()[0].length;
+            only = millis(start);
+            System.out.printf("%-20s %10.1f %14s %14.1f%n", "count by user", walk, "", only);
+        }
+        System.out.println("(checksum " + sink + ")");
+        if (!ok) System.exit(1);
+    }
+
+    /**
+     * Counts ratings of each star value per hall or per dish by walking every user.
+     */
+    private static long[][] walkHistogram(Map<Integer, User> users, boolean byHall) {
+        long[][] counts = new long[groups(users, byHall)][User.MAX_RATING + 1];
+        for (User user : users.values()) {
+            for (int i = 0; i < user.getRatingCount(); i++) {
+                counts[byHall ? user.getHallIdAt(i) : user.getDishIdAt(i)][user.getRatingAt(i)]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Averages the ratings per hall or per dish by walking every user.
+     */
+    private static double[] walkAverages(Map<Integer, User> users, boolean byHall) {
+        int width = groups(users, byHall);
+        long[] sums = new long[width];
+        int[] counts = new int[width];
+        for (User user : users.values()) {
+            for (int i = 0; i < user.getRatingCount(); i++) {
+                int group = byHall ? user.getHallIdAt(i) : user.getDishIdAt(i);
+                sums[group] += user.getRatingAt(i);
+                counts[group]++;
+            }
+        }
+        double[] result = new double[width];
+        for (int g = 0; g < width; g++) result[g] = counts[g] == 0 ? 0 : (double) sums[g] / counts[g];
+        return result;
+    }
+
+    /**
+     * Counts each user's ratings by walking every user, in the same form (and the same
+     * user order) as RatingTable.countByUser.
+     */
+    private static int[][] walkCounts(Map<Integer, User> users) {
+        int rated = 0;
+        for (User user : users.values()) {
+            if (user.getRatingCount() > 0) rated++;
+        }
+        int[] ids = new int[rated];
+        int[] counts = new int[rated];
+        int next = 0;
+        for (User user : users.values()) {
+            if (user.getRatingCount() == 0) continue;
+            ids[next] = user.getUserID();
+            counts[next++] = user.getRatingCount();
+        }
+        return new int[][] {ids, counts};
+    }
+
+    /**
+     * Returns one more than the highest hall or dish ID any user has rated.
+     */
+    private static int groups(Map<Integer, User> users, boolean byHall) {
+        int max = -1;
+        for (User user : users.values()) {
+            for (int i = 0; i < user.getRatingCount(); i++) {
+                max = Math.max(max, byHall ? user.getHallIdAt(i) : user.getDishIdAt(i));
+            }
+        }
+        return max + 1;
+    }
+
+    private static double millis(long start) {
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Memory benchmark for User's packed rating storage. Loads the same ratings twice,
+ * once into the original layout (per-user HashMap of hall -> HashMap of dish ->
+ * boxed Integer, with a fresh String per row as the CSV parser produces) and once
+ * into User objects, and reports the retained heap of each.
+ *
+ * Run from the repository root:
+ *   javac -d out src/*.java bench/*.java
+ *   java -Xmx2g -cp out UserMemoryBench [ratings] [users] [dishes]
+ */
+public class UserMemoryBench {
+    private static final String[] HALLS = {"Hoch", "McConnel", "Collins", "Malott", "Frank", "Frary", "Oldenborg"};
+
+    public static void main(String[] args) {
+        int ratings = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int userCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int dishCount = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        long[] nested = measureNested(ratings, userCount, dishCount);
+        long[] packed = measurePacked(ratings, userCount, dishCount);
+        System.out.printf("Nested HashMaps: %,d ratings in %.1f MB (%.0f bytes each)%n",
+            nested[1], nested[0] / 1e6, (double) nested[0] / nested[1]);
+        System.out.printf("Packed User:     %,d ratings in %.1f MB (%.0f bytes each)%n",
+            packed[1], packed[0] / 1e6, (double) packed[0] / packed[1]);
+        System.out.printf("Reduction: %.1fx%n", (double) nested[0] / packed[0]);
+    }
+
+    /**
+     * Loads the ratings into the original nested-map layout.
+     * @return {retained bytes, ratings stored}
+     */
+    private static long[] measureNested(int ratings, int userCount, int dishCount) {
+        long base = usedHeap();
+        HashMap<Integer, HashMap<String, HashMap<String, Integer>>> users = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < ratings; i++) {
+            int user = random.nextInt(userCount);
+            String hall = new String(HALLS[random.nextInt(HALLS.length)]);     // One String per parsed field
+            String dish = new String("Dish " + random.nextInt(dishCount));
+            users.computeIfAbsent(user, k -> new HashMap<>())
+                .computeIfAbsent(hall, k -> new HashMap<>())
+                .put(dish, 1 + random.nextInt(5));
+        }
+        long bytes = usedHeap() - base;
+        long stored = 0;
+        for (HashMap<String, HashMap<String, Integer>> halls : users.values()) {
+            for (HashMap<String, Integer> dishes : halls.values()) stored += dishes.size();
+        }
+        return new long[] {bytes, stored};
+    }
+
+    /**
+     * Loads the same ratings into User objects (without a rating index).
+     * @return {retained bytes, ratings stored}
+     */
+    private static long[] measurePacked(int ratings, int userCount, int dishCount) {
+        long base = usedHeap();
+        HashMap<Integer, User> users = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < ratings; i++) {
+            int user = random.nextInt(userCount);
+            String hall = new String(HALLS[random.nextInt(HALLS.length)]);
+            String dish = new String("Dish " + random.nextInt(dishCount));
+            users.computeIfAbsent(user, User::new).rate(hall, dish, 1 + random.nextInt(5));
+        }
+        long bytes = usedHeap() - base;     // Includes the SymbolTable entries for new names
+        long stored = 0;
+        for (User user : users.values()) stored += user.getRatingCount();
+        return new long[] {bytes, stored};
+    }
+
+    /**
+     * Returns the heap in use after the garbage collector has settled.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
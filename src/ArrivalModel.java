@@ -0,0 +1,46 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Interface for how many diners arrive during each simulated minute.
+ * The simulation asks once per tick and then splits the arrivals across open halls.
+ */
+public interface ArrivalModel {
+
+    /**
+     * Returns the number of diners arriving during the tick that starts at simTime.
+     * @param simTime the start of the tick (ms since 10:45 AM)
+     * @param random the random generator to draw from, so seeded runs repeat
+     * @return the number of arrivals (never negative)
+     */
+    int arrivals(long simTime, RandomGenerator random);
+
+    /**
+     * Builds a model from a short description, as used on the command line:
+     * "constant:20", "poisson:20", "surge:20" (Poisson with lunch rush surges),
+     * or "csv:path/to/counts.csv".
+     * @param spec the description
+     * @return the arrival model
+     * @throws IllegalArgumentException if the description is not understood
+     * @throws java.io.IOException if a CSV model cannot be read
+     */
+    static ArrivalModel parse(String spec) throws java.io.IOException {
+        int colon = spec.indexOf(':');
+        if (colon < 0) throw new IllegalArgumentException("Expected kind:value, got " + spec);
+        String kind = spec.substring(0, colon).trim().toLowerCase();
+        String value = spec.substring(colon + 1).trim();
+        switch (kind) {
+            case "constant":
+                return new ConstantArrivals(Integer.parseInt(value));
+            case "poisson":
+                return new PoissonArrivals(Double.parseDouble(value));
+            case "surge":
+                return SurgeArrivals.lunchRush(Double.parseDouble(value));
+            case "csv":
+                return new CsvArrivals(value);
+            default:
+                throw new IllegalArgumentException("Unknown arrival model: " + kind);
+        }
+    }
+}
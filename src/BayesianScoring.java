@@ -0,0 +1,40 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Bayesian average: every dish starts with a few imaginary ratings at the hall's mean,
+ * so a handful of ratings can only pull a dish part of the way from that mean, and
+ * a dish needs many ratings to rank on its own average.
+ */
+public class BayesianScoring implements ScoringStrategy {
+    public static final double DEFAULT_WEIGHT = 5;  // The prior counts as this many ratings
+
+    private final double weight;
+
+    /**
+     * Constructor uses the default prior weight.
+     */
+    public BayesianScoring() {
+        this(DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Constructor sets how strongly dishes are pulled toward the hall's mean.
+     * @param weight the number of ratings the prior is worth
+     */
+    public BayesianScoring(double weight) {
+        if (weight < 0) throw new IllegalArgumentException("weight must not be negative");
+        this.weight = weight;
+    }
+
+    public double score(DishStats stats, double prior) {
+        return (weight * prior + stats.getSum()) / (weight + stats.getCount());
+    }
+
+    @Override
+    public boolean usesPrior() {
+        return true;
+    }
+
+    public String getName() { return "Bayesian Average"; }
+    public double getWeight() { return this.weight; }  // Ratings the prior is worth
+}
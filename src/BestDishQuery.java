@@ -0,0 +1,150 @@
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Finds the best dish-and-hall options across every dining hall right now: each dish's
+ * leaderboard score minus a penalty for how long the line is and how full the hall is.
+ *
+ * The penalty is the same for every dish at a hall, so each hall's live leaderboard is
+ * already sorted by adjusted score. A query takes each hall's current board, computes
+ * the hall's penalty once, and k-way merges the boards with a heap of one cursor per
+ * hall, so it touches O(k log halls) entries and never scans dishes or users. Closed
+ * halls are skipped unless asked for. Safe to call from any thread while the
+ * simulation runs.
+ */
+public class BestDishQuery {
+    public static final double WAIT_PENALTY = 0.1;      // Stars lost per minute of wait
+    public static final double DENSITY_PENALTY = 1.0;   // Stars lost at a completely full hall
+
+    private final List<DiningHall> halls;
+    private final double waitPenalty;
+    private final double densityPenalty;
+
+    /**
+     * Constructor uses the default penalties.
+     * @param halls the dining halls to search (each must track ratings)
+     */
+    public BestDishQuery(List<DiningHall> halls) {
+        this(halls, WAIT_PENALTY, DENSITY_PENALTY);
+    }
+
+    /**
+     * Constructor initializes a query over the given halls.
+     * @param halls the dining halls to search (each must track ratings)
+     * @param waitPenalty stars lost per minute of estimated wait
+     * @param densityPenalty stars lost when a hall is completely full
+     */
+    public BestDishQuery(List<DiningHall> halls, double waitPenalty, double densityPenalty) {
+        if (waitPenalty < 0 || densityPenalty < 0) throw new IllegalArgumentException("Penalties must not be negative");
+        for (DiningHall dh : halls) {
+            if (dh.getLeaderboard() == null) throw new IllegalArgumentException(dh.getName() + " does not track ratings");
+        }
+        this.halls = new ArrayList<>(halls);
+        this.waitPenalty = waitPenalty;
+        this.densityPenalty = densityPenalty;
+    }
+
+    /**
+     * Returns the best options across all open halls, best first.
+     * At most the leaderboard size is considered per hall.
+     * @param topN the number of options to return
+     * @param simTime the current simulation time in milliseconds
+     * @return up to topN options, sorted from highest to lowest adjusted score
+     */
+    public List<Option> best(int topN, long simTime) {
+        return best(topN, simTime, false);
+    }
+
+    /**
+     * Returns the best options across all halls, best first.
+     * @param topN the number of options to return
+     * @param simTime the current simulation time in milliseconds
+     * @param includeClosed true to also consider closed halls (e.g. before the simulation starts)
+     * @return up to topN options, sorted from highest to lowest adjusted score
+     */
+    public List<Option> best(int topN, long simTime, boolean includeClosed) {
+        List<Option> result = new ArrayList<>();
+        if (topN <= 0) return result;
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(halls.size());
+        for (DiningHall dh : halls) {
+            if (!includeClosed && dh.getStatus().equals("closed")) continue;  // Nobody can eat there
+            Leaderboard.View board = dh.getLeaderboard().getView();     // One consistent snapshot per hall
+            if (board.size() == 0) continue;
+            long wait = dh.getWaitTime(simTime);
+            double density = Math.min(1.0, (double) dh.getOccupancy() / dh.getMaxSize());
+            double penalty = waitPenalty * wait / 60_000.0 + densityPenalty * density;
+            heap.add(new Cursor(dh.getName(), board, wait, density, penalty));
+        }
+        while (result.size() < topN && !heap.isEmpty()) {
+            Cursor top = heap.poll();
+            result.add(top.option());
+            if (++top.rank < top.board.size()) heap.add(top);   // Next dish at the same hall
+        }
+        return result;
+    }
+
+    /**
+     * One hall's position in the merge.
+     */
+    private static final class Cursor implements Comparable<Cursor> {
+        private final String hall;
+        private final Leaderboard.View board;
+        private final long wait;
+        private final double density;
+        private final double penalty;
+        private int rank;   // Next entry of the board to take
+
+        Cursor(String hall, Leaderboard.View board, long wait, double density, double penalty) {
+            this.hall = hall;
+            this.board = board;
+            this.wait = wait;
+            this.density = density;
+            this.penalty = penalty;
+        }
+
+        double adjusted() {
+            return board.getAverage(rank) - penalty;
+        }
+
+        Option option() {
+            return new Option(hall, board.getDish(rank), board.getAverage(rank), wait, density, adjusted());
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int cmp = Double.compare(other.adjusted(), adjusted());     // Highest adjusted score first
+            if (cmp != 0) return cmp;
+            cmp = board.getDish(rank).compareTo(other.board.getDish(other.rank));
+            return cmp != 0 ? cmp : hall.compareTo(other.hall);
+        }
+    }
+
+    /**
+     * An immutable result: a dish at a hall, with what went into its score.
+     */
+    public static final class Option {
+        private final String hall;
+        private final String dish;
+        private final double rating;
+        private final long waitMillis;
+        private final double density;
+        private final double score;
+
+        Option(String hall, String dish, double rating, long waitMillis, double density, double score) {
+            this.hall = hall;
+            this.dish = dish;
+            this.rating = rating;
+            this.waitMillis = waitMillis;
+            this.density = density;
+            this.score = score;
+        }
+
+        public String getHall() { return this.hall; }  // Dining hall serving the dish
+        public String getDish() { return this.dish; }  // Dish name
+        public double getRating() { return this.rating; }  // Leaderboard score before penalties
+        public long getWaitMillis() { return this.waitMillis; }    // Estimated wait (in ms)
+        public double getDensity() { return this.density; }    // Fraction of seats taken (capped at 1)
+        public double getScore() { return this.score; }    // Rating minus the wait and density penalties
+    }
+}
@@ -0,0 +1,329 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Thread-safe version of FriendPollingSystem for a multi-threaded server.
+ *
+ * Reads never lock or wait. Each user's friends are an immutable array sorted by
+ * member ID, replaced wholesale (copy on write) when a friendship is added, and each
+ * user's check-in is an immutable Presence (hall and expiry time) behind a volatile
+ * field. A read just follows these references, checking expiry times against the
+ * clock as it goes.
+ *
+ * Writes are atomic per user: a check-in locks only that user, and a friendship locks
+ * its two users in ID order. The per-hall sets of checked-in users are concurrent
+ * sets that a writer sweeps of expired check-ins about once per second.
+ *
+ * Invalid hall names are counted (getInvalidHalls) instead of printed.
+ */
+public class ConcurrentFriendPollingSystem implements InterfaceFriendPollingSystem {
+    private static final long SWEEP_INTERVAL = 1000;    // Time between sweeps of expired check-ins (in ms)
+    private static final Member[] NO_FRIENDS = new Member[0];
+
+    private final ConcurrentHashMap<String, Member> members = new ConcurrentHashMap<>();  // User name -> state
+    private final Map<Integer, Set<Member>> presentAt = new HashMap<>();   // Hall ID -> members checked in (fixed keys)
+    private final Map<Integer, Long> ttlByHall = new ConcurrentHashMap<>();    // Hall ID -> check-in lifetime (in ms)
+    private final LongSupplier clock;   // Current time (in ms)
+    private final AtomicInteger nextId = new AtomicInteger();   // Lock order for friendships
+    private final AtomicLong nextSweep;     // When the next sweep is due
+    private final LongAdder invalidHalls = new LongAdder();     // Check-ins rejected for an unknown hall
+    private final LongAdder expired = new LongAdder();          // Check-ins removed by sweeps
+
+    /**
+     * Constructor initializes an empty system with check-ins expiring on the wall clock.
+     */
+    public ConcurrentFriendPollingSystem() {
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor initializes an empty system.
+     * @param clock the current time in milliseconds (e.g. simulation time)
+     */
+    public ConcurrentFriendPollingSystem(LongSupplier clock) {
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + SWEEP_INTERVAL);
+        for (Integer hallId : FriendPollingSystem.HALL_NAMES.keySet()) {
+            this.presentAt.put(hallId, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    /**
+     * Uses each hall's meal length as the lifetime of a check-in there.
+     * @param halls the dining halls
+     */
+    public void setPresenceTtls(List<DiningHall> halls) {
+        for (DiningHall dh : halls) {
+            int hallId = SymbolTable.HALLS.find(dh.getName());
+            if (presentAt.containsKey(hallId)) ttlByHall.put(hallId, dh.getMealLength());
+        }
+    }
+
+    /**
+     * Adds a user to the system. If the user already exists, it does nothing.
+     * @param userName the name of the user to add
+     */
+    public void addUser(String userName) {
+        members.computeIfAbsent(userName, name -> new Member(name, nextId.getAndIncrement()));
+    }
+
+    /**
+     * Adds a friendship between two users. Both users must already exist in the system.
+     * If either user does not exist, nothing happens.
+     * @param user1 the first user's name
+     * @param user2 the second user's name
+     */
+    public void addFriendship(String user1, String user2) {
+        Member a = members.get(user1);
+        Member b = members.get(user2);
+        if (a == null || b == null) return; // Check if both users exist
+
+        Member first = a.id <= b.id ? a : b;    // Lock in ID order so two writers can't deadlock
+        Member second = first == a ? b : a;
+        synchronized (first) {
+            synchronized (second) {
+                first.friends = with(first.friends, second);
+                second.friends = with(second.friends, first);
+            }
+        }
+    }
+
+    /**
+     * Sets the dining hall status for a user.
+     * If the dining hall is null, the user is marked as not at any dining hall.
+     * If the dining hall is not valid, counts an error and does not update.
+     * The check-in expires after the hall's meal length.
+     * @param userName the user's name
+     * @param diningHall the dining hall name (or null)
+     */
+    public void setDiningHall(String userName, String diningHall) {
+        setDiningHall(userName, diningHall, -1);
+    }
+
+    /**
+     * Sets the dining hall status for a user, expiring after a given time.
+     * @param userName the user's name
+     * @param diningHall the dining hall name (or null)
+     * @param ttlMillis how long the check-in lasts (in ms), or -1 for the hall's default
+     * @return false if the user or hall is unknown
+     */
+    public boolean setDiningHall(String userName, String diningHall, long ttlMillis) {
+        Member member = members.get(userName);
+        if (member == null) return false;   // Check if user exists
+        long now = clock.getAsLong();
+        sweepIfDue(now);
+
+        int hallId = -1;
+        if (diningHall != null) {
+            hallId = SymbolTable.HALLS.find(diningHall);
+            if (!presentAt.containsKey(hallId)) {   // Check if dining hall is valid
+                invalidHalls.increment();
+                return false;
+            }
+        }
+        synchronized (member) {
+            Presence previous = member.presence;
+            if (previous != null && previous.hallId != hallId) presentAt.get(previous.hallId).remove(member);
+            if (hallId < 0) {
+                member.presence = null;
+                return true;
+            }
+            long ttl = ttlMillis >= 0 ? ttlMillis : ttlByHall.getOrDefault(hallId, FriendPollingSystem.DEFAULT_TTL);
+            member.presence = new Presence(hallId, now + ttl);
+            presentAt.get(hallId).add(member);  // After the presence, so readers of the set see it
+        }
+        return true;
+    }
+
+    /**
+     * Returns a map of friends who are currently at a dining hall, along with their dining hall names.
+     * @param userName the name of the user to check
+     * @return a map of friends and their dining halls
+     */
+    public Map<String, String> getFriendsAtDiningHalls(String userName) {
+        Map<String, String> result = new HashMap<>();
+        Member member = members.get(userName);
+        if (member == null) return result;  // Check if user exists
+
+        long now = clock.getAsLong();
+        Member[] friends = member.friends;  // One consistent snapshot
+        int present = 0;
+        for (Set<Member> hall : presentAt.values()) present += hall.size();
+        if (friends.length <= present) {
+            for (Member friend : friends) {
+                Presence p = friend.presence;
+                if (p != null && p.expiresAt > now) result.put(friend.name, FriendPollingSystem.HALL_NAMES.get(p.hallId));
+            }
+        } else {
+            for (Map.Entry<Integer, Set<Member>> hall : presentAt.entrySet()) {    // Fewer people checked in than friends
+                for (Member user : hall.getValue()) {
+                    if (contains(friends, user) && isAt(user, hall.getKey(), now)) {
+                        result.put(user.name, FriendPollingSystem.HALL_NAMES.get(hall.getKey()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the friends of a user who are checked into one dining hall.
+     * @param userName the name of the user to check
+     * @param diningHall the dining hall name
+     * @return the friends at that hall (empty if the user or hall is unknown or null)
+     */
+    public Set<String> getFriendsAt(String userName, String diningHall) {
+        Set<String> result = new HashSet<>();
+        if (userName == null || diningHall == null) return result;  // Name lookups have no null keys
+        Member member = members.get(userName);
+        int hallId = SymbolTable.HALLS.find(diningHall);
+        Set<Member> present = presentAt.get(hallId);
+        if (member == null || present == null) return result;   // Unknown user or hall
+
+        long now = clock.getAsLong();
+        Member[] friends = member.friends;
+        if (friends.length <= present.size()) {
+            for (Member friend : friends) {
+                if (isAt(friend, hallId, now)) result.add(friend.name);
+            }
+        } else {
+            for (Member user : present) {
+                if (contains(friends, user) && isAt(user, hallId, now)) result.add(user.name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts a user's friends at every dining hall.
+     * @param userName the name of the user to check
+     * @return hall name -> number of friends there, for every hall in display order
+     */
+    public Map<String, Integer> getFriendCountsByHall(String userName) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String hall : FriendPollingSystem.VALID_DINING_HALLS) result.put(hall, 0);
+        for (Map.Entry<String, String> friend : getFriendsAtDiningHalls(userName).entrySet()) {
+            result.merge(friend.getValue(), 1, Integer::sum);
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many users are checked into a dining hall and not yet expired.
+     * @param diningHall the dining hall name
+     * @return the number of users there (0 if the hall is unknown or null)
+     */
+    public int getPresentCount(String diningHall) {
+        if (diningHall == null) return 0;
+        int hallId = SymbolTable.HALLS.find(diningHall);
+        Set<Member> present = presentAt.get(hallId);
+        if (present == null) return 0;
+        long now = clock.getAsLong();
+        int count = 0;
+        for (Member user : present) {
+            if (isAt(user, hallId, now)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Removes expired check-ins from the hall sets, if a sweep is due. Only one writer
+     * sweeps at a time; the others carry on.
+     */
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now < due || !nextSweep.compareAndSet(due, now + SWEEP_INTERVAL)) return;
+        for (Set<Member> hall : presentAt.values()) {
+            for (Member user : hall) {
+                Presence p = user.presence;
+                if (p != null && p.expiresAt > now) continue;
+                synchronized (user) {
+                    p = user.presence;  // Re-check: they may have just checked in again
+                    if (p == null || p.expiresAt <= now) {
+                        if (p != null) expired.increment();
+                        hall.remove(user);
+                        user.presence = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isAt(Member user, int hallId, long now) {
+        Presence p = user.presence;
+        return p != null && p.hallId == hallId && p.expiresAt > now;
+    }
+
+    /**
+     * Finds where a member is (or would go) in a friend array, by binary search on ID.
+     */
+    private static int search(Member[] friends, Member friend) {
+        int lo = 0;
+        int hi = friends.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int id = friends[mid].id;
+            if (id < friend.id) lo = mid + 1;
+            else if (id > friend.id) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private static boolean contains(Member[] friends, Member friend) {
+        return search(friends, friend) >= 0;
+    }
+
+    /**
+     * Returns a copy of the friend array with one more friend, or the same array if
+     * they were already there.
+     */
+    private static Member[] with(Member[] friends, Member friend) {
+        int at = search(friends, friend);
+        if (at >= 0) return friends;
+        at = -at - 1;
+        Member[] copy = new Member[friends.length + 1];
+        System.arraycopy(friends, 0, copy, 0, at);
+        copy[at] = friend;
+        System.arraycopy(friends, at, copy, at + 1, friends.length - at);
+        return copy;
+    }
+
+    public long getInvalidHalls() { return this.invalidHalls.sum(); }  // Check-ins rejected for an unknown hall
+    public long getExpired() { return this.expired.sum(); }    // Check-ins removed by sweeps
+    public int size() { return this.members.size(); }  // Number of users
+
+    /**
+     * One user's state. The fields are replaced, never modified, so readers need no lock.
+     */
+    private static final class Member {
+        private final String name;
+        private final int id;   // Lock order
+        private volatile Member[] friends = NO_FRIENDS;    // Sorted by ID, never modified in place
+        private volatile Presence presence;     // null if not checked in
+
+        Member(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+    }
+
+    /**
+     * An immutable check-in.
+     */
+    private static final class Presence {
+        private final int hallId;
+        private final long expiresAt;   // Clock time at which it lapses (in ms)
+
+        Presence(int hallId, long expiresAt) {
+            this.hallId = hallId;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
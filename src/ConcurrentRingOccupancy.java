@@ -0,0 +1,192 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Thread-safe version of RingOccupancy for many check-in threads at once.
+ * Like the ring, it keeps one diner counter per tick, but each tick's counter is
+ * striped across cells (one per thread hash, 64 bytes apart) so concurrent
+ * arrivals don't fight over one cache line. Arrivals only increment a cell;
+ * a lock is taken only when an arrival opens a new tick and by dequeue, both of
+ * which happen about once per tick. size() and getWaitTime() never lock.
+ *
+ * Arrivals may come from threads whose clocks disagree slightly: an arrival
+ * older than the newest open tick is counted in the newest tick.
+ */
+public class ConcurrentRingOccupancy implements InterfaceOccupancy {
+    private static final int PADDING = 8;   // Longs between stripes (one cache line)
+
+    private final long mealLength;  // how long a user stays in the hall (in ms)
+    private final long tickLength;  // width of one ring slot (in ms)
+    private final int slots;        // Ticks in the ring
+    private final int stripes;      // Counter cells per tick (power of two)
+    private final int stride;       // Distance between one tick's cells
+    private final AtomicLongArray counts;   // [stripe * stride + slot] -> diners who entered in that tick
+    private final AtomicLongArray ticks;    // Slot -> the tick it currently holds
+    private final AtomicLongArray entryTimes;   // Slot -> entry time of its first diner
+    private final AtomicLong tailTick;  // Newest open tick
+    private final LongAdder population; // Diners inside (arrivals minus departures)
+
+    /**
+     * Constructor initializes an empty ring with the default one-minute tick.
+     * @param mealLength the time a user spends in the hall (in ms)
+     */
+    public ConcurrentRingOccupancy(long mealLength) {
+        this(mealLength, RingOccupancy.DEFAULT_TICK_LENGTH);
+    }
+
+    /**
+     * Constructor initializes an empty ring with one counter stripe per available core.
+     * @param mealLength the time a user spends in the hall (in ms)
+     * @param tickLength the width of one slot (in ms)
+     */
+    public ConcurrentRingOccupancy(long mealLength, long tickLength) {
+        if (tickLength <= 0) throw new IllegalArgumentException("tickLength must be positive");
+        this.mealLength = mealLength;
+        this.tickLength = tickLength;
+        this.slots = (int) ((mealLength + tickLength - 1) / tickLength) + 1; // Every tick a diner can span, plus one
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.stripes = Integer.highestOneBit(Math.min(64, Math.max(1, cores)) * 2 - 1);  // Round up to a power of two
+        this.stride = this.slots + PADDING;
+        this.counts = new AtomicLongArray(this.stripes * this.stride);
+        this.ticks = new AtomicLongArray(this.slots);
+        this.entryTimes = new AtomicLongArray(this.slots);
+        for (int s = 0; s < this.slots; s++) this.ticks.set(s, -1);   // Nothing open yet
+        this.tailTick = new AtomicLong(-1);
+        this.population = new LongAdder();
+    }
+
+    /**
+     * Records a diner entering. Safe to call from any number of threads.
+     * @param user the user entering (only their entry time is updated)
+     * @param simTime the current simulation time
+     */
+    public void enqueue(User user, long simTime) {
+        user.setEntryTime(simTime); // Mark when they entered
+        enqueueBatch(1, simTime);
+    }
+
+    /**
+     * Records a group of anonymous diners with one counter update. Safe to call from
+     * any number of threads.
+     * @param count the number of diners entering
+     * @param simTime the current simulation time
+     */
+    public void enqueueBatch(int count, long simTime) {
+        if (count <= 0) return;
+        long tick = simTime / tickLength;
+        long tail = tailTick.get();
+        if (tick > tail) tail = open(tick, simTime);    // First arrival of a new tick
+        counts.addAndGet(cell(slot(tail)), count);
+        population.add(count);
+    }
+
+    /**
+     * Opens a new newest tick, retiring whatever the reused slots still held.
+     * @return the newest open tick (which may be later than the one asked for)
+     */
+    private synchronized long open(long tick, long simTime) {
+        long tail = tailTick.get();
+        if (tick <= tail) return tail;  // Another thread got here first
+        long from = Math.max(tail + 1, tick - slots + 1);
+        for (long t = from; t <= tick; t++) {
+            if (sum(slot(t)) > 0) {
+                dequeue(simTime);   // Slots about to be reused are already past their meal length
+                break;
+            }
+        }
+        for (long t = from; t <= tick; t++) {
+            int s = slot(t);
+            long left = harvest(s);     // Anyone still in a reused slot is long past their meal
+            if (left > 0) population.add(-left);
+            entryTimes.set(s, t == tick ? simTime : t * tickLength);
+            ticks.set(s, t);
+        }
+        tailTick.set(tick); // Publish only once the slot is ready
+        return tick;
+    }
+
+    /**
+     * Drops every tick whose diners have finished their meal.
+     * @param simTime the current simulation time
+     */
+    public synchronized void dequeue(long simTime) {
+        long tail = tailTick.get();
+        for (long t = tail - slots + 1; t <= tail; t++) {   // Oldest to newest
+            int s = slot(t);
+            if (t < 0 || ticks.get(s) != t) continue;
+            if (entryTimes.get(s) + mealLength > simTime) break;   // Stop once a tick isn't done
+            long left = harvest(s);
+            if (left > 0) population.add(-left);
+        }
+    }
+
+    /**
+     * Estimates the wait time for the next arrival without locking: walks the live
+     * ticks from oldest to newest until the k-th departure, where k is the number
+     * of people waiting. Concurrent arrivals may make the answer one tick stale.
+     * @param simTime the current simulation time
+     * @param maxSize the hall's seating capacity
+     * @return estimated wait time in milliseconds
+     */
+    public long getWaitTime(long simTime, int maxSize) {
+        int size = size();
+        int inHall = Math.min(size, maxSize);   // People currently seated
+        int waitingOutside = size - inHall;     // Overflow in line
+        if (waitingOutside <= 0) return 0;      // No overflow, no wait
+
+        long needed = Math.min(waitingOutside, inHall);
+        long seen = 0;
+        long tail = tailTick.get();
+        long entry = simTime - mealLength;
+        for (long t = Math.max(0, tail - slots + 1); t <= tail; t++) {
+            int s = slot(t);
+            if (ticks.get(s) != t) continue;
+            long count = sum(s);
+            if (count == 0) continue;
+            entry = entryTimes.get(s);
+            seen += count;
+            if (seen >= needed) break;
+        }
+        return Math.max(0, entry + mealLength - simTime);
+    }
+
+    /**
+     * Empties every stripe of a slot.
+     * @return the number of diners it held
+     */
+    private long harvest(int s) {
+        long total = 0;
+        for (int k = 0; k < stripes; k++) total += counts.getAndSet(k * stride + s, 0);
+        return total;
+    }
+
+    /**
+     * Adds up every stripe of a slot.
+     */
+    private long sum(int s) {
+        long total = 0;
+        for (int k = 0; k < stripes; k++) total += counts.get(k * stride + s);
+        return total;
+    }
+
+    /**
+     * Picks the calling thread's cell for a slot.
+     */
+    private int cell(int s) {
+        int h = System.identityHashCode(Thread.currentThread());
+        h ^= h >>> 16;  // Spread the hash
+        return (h & (stripes - 1)) * stride + s;
+    }
+
+    /**
+     * Maps a tick to its ring slot.
+     */
+    private int slot(long tick) {
+        return (int) (tick % slots);
+    }
+
+    public int size() { return (int) Math.max(0, this.population.sum()); }    // Number of diners in the hall
+}
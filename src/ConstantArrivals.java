@@ -0,0 +1,25 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * The same number of diners every tick (the original simulation used 20).
+ */
+public class ConstantArrivals implements ArrivalModel {
+    private final int perTick;
+
+    /**
+     * Constructor sets the arrivals per tick.
+     * @param perTick the number of diners arriving each tick
+     */
+    public ConstantArrivals(int perTick) {
+        if (perTick < 0) throw new IllegalArgumentException("perTick must not be negative");
+        this.perTick = perTick;
+    }
+
+    public int arrivals(long simTime, RandomGenerator random) {
+        return this.perTick;
+    }
+
+    public int getPerTick() { return this.perTick; }   // Diners per tick
+}
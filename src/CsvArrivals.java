@@ -0,0 +1,50 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Replays historical arrival counts from a time,count CSV, where time is a clock time
+ * like "12:05 PM". Minutes missing from the file have no arrivals, and repeated
+ * minutes add up. Lines that don't parse are skipped (the first line may be a header).
+ */
+public class CsvArrivals implements ArrivalModel {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MAX_LOGGED = 10;   // Malformed lines printed before going quiet
+
+    private final int[] counts = new int[MINUTES_PER_DAY];   // Minutes since 10:45 AM -> arrivals
+    private int malformed;  // Lines skipped
+
+    /**
+     * Constructor reads the counts file.
+     * @param filePath the path to the time,count CSV
+     * @throws IOException if the file cannot be read
+     */
+    public CsvArrivals(String filePath) throws IOException {
+        List<String> lines = Files.readAllLines(Path.of(filePath));
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) continue;
+            int comma = line.lastIndexOf(',');
+            try {
+                if (comma < 0) throw new IllegalArgumentException("missing comma");
+                long simTime = Program.parse12hrClock(line.substring(0, comma));
+                int count = Integer.parseInt(line.substring(comma + 1).trim());
+                if (count < 0) throw new IllegalArgumentException("negative count");
+                counts[(int) (simTime / 60000)] += count;
+            } catch (IllegalArgumentException e) {   // Includes NumberFormatException
+                if (i == 0) continue;   // Header
+                if (malformed++ < MAX_LOGGED) System.out.println("Skipping malformed arrivals line " + (i + 1));
+            }
+        }
+    }
+
+    public int arrivals(long simTime, RandomGenerator random) {
+        return counts[(int) Math.floorMod(simTime / 60000, (long) MINUTES_PER_DAY)];
+    }
+
+    public int getMalformed() { return this.malformed; }   // Lines skipped while reading
+}
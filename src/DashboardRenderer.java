@@ -0,0 +1,214 @@
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Draws the dining hall dashboard on its own thread, so a slow terminal never holds up
+ * the simulation. The simulation captures an immutable Frame each tick and submits it,
+ * which never blocks. The renderer draws at most maxFps frames a second. A frame that
+ * is replaced before it is drawn is dropped, so only the latest one is shown.
+ *
+ * The screen is cleared once; after that only cells whose text changed are rewritten,
+ * using cursor positioning, so a typical tick writes a few dozen bytes instead of the
+ * whole table. A line below the table shows the best dish across halls right now.
+ */
+public class DashboardRenderer implements AutoCloseable {
+    public static final int DEFAULT_FPS = 10;  // Matches the live simulation's tick rate
+
+    // Screen layout (1-based rows and columns) of the full redraw in draw()
+    private static final int TIME_ROW = 3;
+    private static final int TIME_COL = 15;
+    private static final int FIRST_HALL_ROW = 7;
+    private static final int[] COLUMNS = {1, 16, 29, 43};   // Hall, status, diners, wait time
+    private static final int[] WIDTHS = {12, 10, 10, 16};
+
+    private final PrintStream out;
+    private final long frameNanos;  // Minimum time between frames
+    private final AtomicReference<Frame> pending = new AtomicReference<>();    // Latest undrawn frame
+    private final Thread thread;
+    private volatile boolean running = true;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long rendered;     // Written by the renderer thread only
+    private volatile long bytesWritten; // Written by the renderer thread only
+    private String[][] shown;   // Cells currently on screen (renderer thread only)
+    private String shownTime;
+    private String shownBest;
+
+    /**
+     * Constructor starts the renderer thread.
+     * @param out where to draw (normally System.out)
+     * @param maxFps the most frames to draw per second
+     */
+    public DashboardRenderer(PrintStream out, int maxFps) {
+        if (maxFps <= 0) throw new IllegalArgumentException("maxFps must be positive");
+        this.out = out;
+        this.frameNanos = 1_000_000_000L / maxFps;
+        this.thread = new Thread(this::runRenderer, "dashboard-renderer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Captures the current state of every hall, refreshing the status of every hall
+     * that is not closed. Call it from the simulation thread.
+     * @param halls the dining halls to show
+     * @param currentTime the current time in 12-hour format
+     * @param simTime the current simulation time in milliseconds
+     * @return an immutable frame
+     */
+    public static Frame capture(List<DiningHall> halls, String currentTime, long simTime) {
+        return capture(halls, currentTime, simTime, null);
+    }
+
+    /**
+     * Captures the current state of every hall, plus the best dish to go for.
+     * @param halls the dining halls to show
+     * @param currentTime the current time in 12-hour format
+     * @param simTime the current simulation time in milliseconds
+     * @param bestDish the cross-hall query (or null to leave the line out)
+     * @return an immutable frame
+     */
+    public static Frame capture(List<DiningHall> halls, String currentTime, long simTime, BestDishQuery bestDish) {
+        String[][] cells = new String[halls.size()][];
+        for (int i = 0; i < halls.size(); i++) {
+            DiningHall dh = halls.get(i);
+            String status = dh.getStatus();
+            if (!status.equals("closed")) {
+                status = dh.updateStatus("open");   // Update status if not closed
+            }
+            long wait = status.equals("closed") ? 0 : dh.getWaitTime(simTime);
+            cells[i] = new String[] {
+                dh.getName(),
+                status,
+                String.format("%4d/%-5d", dh.getOccupancy(), dh.getMaxSize()),
+                Program.formatMillis(wait)
+            };
+        }
+        String best = "";
+        if (bestDish != null) {
+            List<BestDishQuery.Option> top = bestDish.best(1, simTime);    // After the status refresh above
+            best = top.isEmpty() ? "Best right now: no ratings yet"
+                : String.format("Best right now: %s at %s (%.2f, wait %s)", top.get(0).getDish(), top.get(0).getHall(),
+                    top.get(0).getScore(), Program.formatMillis(top.get(0).getWaitMillis()));
+        }
+        return new Frame(currentTime, cells, best);
+    }
+
+    /**
+     * Hands a frame to the renderer. Never blocks; if the previous frame has not been
+     * drawn yet it is dropped.
+     * @param frame the frame to show
+     */
+    public void submit(Frame frame) {
+        submitted.increment();
+        if (pending.getAndSet(frame) != null) dropped.increment();
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Draws the last submitted frame and stops the renderer thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Renderer thread: draw the latest frame, then wait out the rest of the frame interval.
+     */
+    private void runRenderer() {
+        while (true) {
+            Frame frame = pending.getAndSet(null);
+            if (frame == null) {
+                if (!running) return;
+                LockSupport.parkNanos(this, frameNanos);    // Nothing new yet
+                continue;
+            }
+            long start = System.nanoTime();
+            draw(frame);
+            rendered++;
+            long left = frameNanos - (System.nanoTime() - start);
+            if (left > 0 && running) LockSupport.parkNanos(this, left);    // Cap the frame rate
+        }
+    }
+
+    /**
+     * Writes the frame, redrawing everything the first time and only changed cells after.
+     */
+    private void draw(Frame frame) {
+        StringBuilder sb = new StringBuilder();
+        if (shown == null || shown.length != frame.cells.length) {
+            sb.append("\033[H\033[2J"); // Clear the console
+            sb.append("Dining Hall Dashboard\n");
+            sb.append("----------------------\n");
+            sb.append("Current Time: ").append(frame.time).append("\n\n");
+            sb.append(String.format("%-12s | %-10s | %-11s | %s\n", "Hall", "Status", "Diners", "Wait Time"));
+            sb.append("-------------|------------|-------------|-----------------\n");
+            for (String[] row : frame.cells) {
+                sb.append(String.format("%-12s | %-10s | %s  | %s\n", row[0], row[1], row[2], row[3]));
+            }
+            if (!frame.best.isEmpty()) sb.append('\n').append(frame.best).append('\n');
+        } else {
+            if (!frame.time.equals(shownTime)) {
+                moveTo(sb, TIME_ROW, TIME_COL).append(frame.time);
+            }
+            for (int r = 0; r < frame.cells.length; r++) {
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    String text = frame.cells[r][c];
+                    if (text.equals(shown[r][c])) continue;    // Unchanged, leave it
+                    moveTo(sb, FIRST_HALL_ROW + r, COLUMNS[c]);
+                    sb.append(text);
+                    for (int pad = text.length(); pad < WIDTHS[c]; pad++) sb.append(' ');   // Blank out old text
+                }
+            }
+            if (!frame.best.equals(shownBest)) {
+                moveTo(sb, FIRST_HALL_ROW + frame.cells.length + 1, 1).append(frame.best);
+                for (int pad = frame.best.length(); pad < shownBest.length(); pad++) sb.append(' ');
+            }
+            moveTo(sb, FIRST_HALL_ROW + frame.cells.length + (frame.best.isEmpty() ? 0 : 2), 1);  // Park the cursor below
+        }
+        out.print(sb);
+        out.flush();
+        bytesWritten += sb.length();
+        shown = frame.cells;
+        shownTime = frame.time;
+        shownBest = frame.best;
+    }
+
+    private static StringBuilder moveTo(StringBuilder sb, int row, int col) {
+        return sb.append("\033[").append(row).append(';').append(col).append('H');
+    }
+
+    public long getSubmitted() { return this.submitted.sum(); }    // Frames handed in
+    public long getRendered() { return this.rendered; }    // Frames drawn
+    public long getDropped() { return this.dropped.sum(); }    // Frames replaced before being drawn
+    public long getBytesWritten() { return this.bytesWritten; }    // Characters sent to the terminal
+
+    /**
+     * An immutable picture of the dashboard: the clock and one row of cells per hall.
+     */
+    public static final class Frame {
+        private final String time;
+        private final String[][] cells;    // Row per hall: name, status, diners, wait
+        private final String best;      // Best dish line ("" if not shown)
+
+        private Frame(String time, String[][] cells, String best) {
+            this.time = time;
+            this.cells = cells;
+            this.best = best;
+        }
+
+        public String getTime() { return this.time; }  // Clock shown in the frame
+    }
+}
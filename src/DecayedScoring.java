@@ -0,0 +1,14 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Time-weighted average: each rating's weight halves every DishStats.DECAY_HALF_LIFE_DAYS,
+ * so a dish that has slipped recently ranks by its recent ratings. The weighted sums
+ * are kept by DishStats, so scoring is O(1).
+ */
+public class DecayedScoring implements ScoringStrategy {
+    public double score(DishStats stats, double prior) {
+        return stats.getDecayedAverage();
+    }
+
+    public String getName() { return "Recent Rating"; }
+}
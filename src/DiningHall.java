@@ -5,14 +5,19 @@ import java.util.stream.Collectors;
  * @author Tommy Ryan & Miles Chiang
  * 
  * Represents a simulated Dining Hall with queueing and dish rating features.
+ * With the CONCURRENT occupancy engine, any number of threads may check diners in
+ * at once; status, occupancy, and wait time reads never block them.
  */
 public class DiningHall implements InterfaceDiningHall {
     private final String name;
+    private final int hallId;   // The hall's SymbolTable.HALLS ID
     private final int maxSize;
     private final long mealLength;  // how long a user stays in the hall (in ms)
     private final int popularity;
-    private String status;
-    private Queue<User> queue;
+    private volatile String status;  // Readable from any thread without locking
+    private final InterfaceOccupancy occupancy;   // Tracks the diners currently inside
+    private final RatingIndex ratingIndex;  // Shared rating aggregates (null if not tracked)
+    private final Leaderboard leaderboard;  // Live top dishes for this hall (null if not tracked)
 
     /**
      * Constructor initializes the dining hall with its name, size, meal length, and popularity.
@@ -22,12 +27,43 @@ public class DiningHall implements InterfaceDiningHall {
      * @param popularity a score representing the hall's popularity
      */
     public DiningHall(String name, int maxSize, long mealLength, int popularity) {
+        this(name, maxSize, mealLength, popularity, null);
+    }
+
+    /**
+     * Constructor initializes the dining hall and attaches a shared rating index,
+     * which lets topDishes answer from running totals instead of scanning users.
+     * @param name the name of the dining hall
+     * @param maxSize the maximum seating capacity
+     * @param mealLength the average time a user spends in the hall (in ms)
+     * @param popularity a score representing the hall's popularity
+     * @param ratingIndex the shared rating index, or null to scan users
+     */
+    public DiningHall(String name, int maxSize, long mealLength, int popularity, RatingIndex ratingIndex) {
+        this(name, maxSize, mealLength, popularity, ratingIndex, OccupancyEngine.QUEUE);
+    }
+
+    /**
+     * Constructor initializes the dining hall with a rating index and a choice of occupancy engine.
+     * @param name the name of the dining hall
+     * @param maxSize the maximum seating capacity
+     * @param mealLength the average time a user spends in the hall (in ms)
+     * @param popularity a score representing the hall's popularity
+     * @param ratingIndex the shared rating index, or null to scan users
+     * @param engine QUEUE to keep User objects, RING for allocation-free counters,
+     *               CONCURRENT for counters that many threads can update at once
+     */
+    public DiningHall(String name, int maxSize, long mealLength, int popularity, RatingIndex ratingIndex,
+                      OccupancyEngine engine) {
         this.name = name;
+        this.hallId = SymbolTable.HALLS.intern(name);
         this.maxSize = maxSize;
         this.mealLength = mealLength;
         this.popularity = popularity;
         this.status = "closed";
-        this.queue = new PriorityQueue<>(); // Users are stored in a time-priority queue by entry time
+        this.occupancy = engine.create(mealLength);
+        this.ratingIndex = ratingIndex;
+        this.leaderboard = ratingIndex == null ? null : ratingIndex.getLeaderboard(this.hallId);
     }
 
     /**
@@ -36,8 +72,17 @@ public class DiningHall implements InterfaceDiningHall {
      * @param simTime the current simulation time
      */
     public void enqueue(User user, long simTime) {
-        user.setEntryTime(simTime); // Mark when they entered
-        queue.add(user);    // Add to the queue
+        occupancy.enqueue(user, simTime);
+    }
+
+    /**
+     * Admits a group of anonymous diners at once. With the RING and CONCURRENT
+     * engines this is one counter update and allocates nothing.
+     * @param count the number of diners entering
+     * @param simTime the current simulation time
+     */
+    public void enqueueBatch(int count, long simTime) {
+        occupancy.enqueueBatch(count, simTime);
     }
 
     /**
@@ -45,14 +90,7 @@ public class DiningHall implements InterfaceDiningHall {
      * @param simTime the current simulation time
      */
     public void dequeueUsers(long simTime) {
-        while (!queue.isEmpty()) {   // Check each user in the queue
-            User user = queue.peek();   // Look at first in line
-            if (user.getEntryTime() + this.mealLength <= simTime) {
-                queue.poll();   // Remove if finished eating
-            } else {
-                break;  // Stop checking once someone isn’t done
-            }
-        }
+        occupancy.dequeue(simTime);
     }
 
     /**
@@ -60,7 +98,7 @@ public class DiningHall implements InterfaceDiningHall {
      * @param statusFlag "open" or "closed"
      * @return the updated status string
      */
-    public String updateStatus(String statusFlag) {
+    public synchronized String updateStatus(String statusFlag) {
         if (statusFlag.equalsIgnoreCase("closed")) {
             this.status = "closed"; // Mark as closed for new entries
             return "closed";
@@ -71,7 +109,7 @@ public class DiningHall implements InterfaceDiningHall {
         }
 
         if (!this.status.equals("closed")) {
-            double density = (double) queue.size() / this.maxSize;   // % fullness
+            double density = (double) occupancy.size() / this.maxSize;   // % fullness
             if (density > 1.0) this.status = "full";
             else if (density >= 0.95) this.status = "packed";
             else if (density >= 0.7) this.status = "busy";
@@ -89,53 +127,39 @@ public class DiningHall implements InterfaceDiningHall {
      * @return estimated wait time in milliseconds
      */
     public long getWaitTime(long simTime) {
-        if (queue.isEmpty()) return 0;  // No line = no wait
-
-        int inHall = Math.min(queue.size(), this.maxSize);   // People currently seated
-        int waitingOutside = queue.size() - inHall; // Overflow in line
-
-        List<Long> departureTimes = new ArrayList<>();
-        int count = 0;
-        for (User user : this.queue) {   // Compute when users inside will leave
-            if (count >= inHall) break;
-            long leaveTime = user.getEntryTime() + this.mealLength;
-            if (leaveTime > simTime) {
-                departureTimes.add(leaveTime - simTime);    // Time until this person leaves
-            }
-            count++;
-        }
-
-        if (waitingOutside <= 0) return 0;  // No overflow, no wait
-
-        Collections.sort(departureTimes);   // Soonest to latest departures
-        int index = Math.min(waitingOutside - 1, departureTimes.size() - 1);    // Person just outside
-        if (index >= 0) {
-            return departureTimes.get(index);   // Estimate: when they get a seat
-        } else {
-            return 0;
-        }
+        return occupancy.getWaitTime(simTime, this.maxSize);
     }
 
     /**
      * Computes the top N dishes based on average ratings from users.
+     * If a rating index is attached, the users map is not scanned, and dishes are
+     * ranked by the index's scoring strategy (the average rating by default).
      * @param topN the number of top dishes to return
      * @param users a map of all users and their ratings
      * @return a list of dish-rating pairs sorted by average rating
      */
     public List<Map.Entry<String, Double>> topDishes(int topN, HashMap<Integer, User> users) {
+        if (leaderboard != null && topN <= leaderboard.getCapacity()) {
+            Leaderboard.View board = leaderboard.getView(); // Served from the live leaderboard
+            List<Map.Entry<String, Double>> result = new ArrayList<>();
+            for (int i = 0; i < Math.min(topN, board.size()); i++) {
+                result.add(new AbstractMap.SimpleEntry<>(board.getDish(i), board.getAverage(i)));
+            }
+            return result;
+        }
+        if (ratingIndex != null) {
+            return ratingIndex.topDishes(this.hallId, topN);    // Served from running totals
+        }
+
         HashMap<String, Integer> totalRatings = new HashMap<>();    // Dish -> sum of ratings
         HashMap<String, Integer> ratingCounts = new HashMap<>();    // Dish -> count of ratings
-        String hallKey = this.name.toLowerCase().trim();
 
         for (User user : users.values()) {  // Loop through all user ratings
-            HashMap<String, HashMap<String, Integer>> userRatings = user.getRatings();
-            if (userRatings.containsKey(hallKey)) {
-                for (Map.Entry<String, Integer> entry : userRatings.get(hallKey).entrySet()) {
-                    String dish = entry.getKey();
-                    int rating = entry.getValue();
-                    totalRatings.put(dish, totalRatings.getOrDefault(dish, 0) + rating);
-                    ratingCounts.put(dish, ratingCounts.getOrDefault(dish, 0) + 1);
-                }
+            for (Map.Entry<String, Integer> entry : user.getHallRatings(this.name).entrySet()) {
+                String dish = entry.getKey();
+                int rating = entry.getValue();
+                totalRatings.put(dish, totalRatings.getOrDefault(dish, 0) + rating);
+                ratingCounts.put(dish, ratingCounts.getOrDefault(dish, 0) + 1);
             }
         }
 
@@ -153,8 +177,11 @@ public class DiningHall implements InterfaceDiningHall {
     }
 
     public String getName() { return this.name; } // Get the name of the dining hall
+    public int getHallId() { return this.hallId; }  // Get the hall's symbol table ID
     public String getStatus() { return this.status; } // Get the current status (e.g., open, busy)
     public int getMaxSize() { return this.maxSize; }  // Get the hall's seating capacity
+    public long getMealLength() { return this.mealLength; }   // Get how long a diner stays (in ms)
     public int getPopularity() { return this.popularity; }    // Get the popularity score of the hall
-    public PriorityQueue<User> getQueue() { return (PriorityQueue<User>) this.queue; }    // Access the user queue
+    public Leaderboard getLeaderboard() { return this.leaderboard; }   // Get the live top dishes (null if not tracked)
+    public int getOccupancy() { return this.occupancy.size(); }   // Get the number of diners inside
 }
@@ -0,0 +1,336 @@
+import java.util.*;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Search index over the dish names rated at one dining hall, for suggesting dishes as
+ * a user types. Matching ignores case and comes in four tiers, best first:
+ * the whole name, a prefix of the name, a prefix of any later word in the name
+ * ("pizza" finds "Pepperoni Pizza"), and fuzzy matches for typos.
+ *
+ * Prefixes are looked up in a trie that holds each name once per word start, and
+ * every name below the prefix is ranked through a heap that keeps only the best few.
+ * Fuzzy matches come from an inverted index of character trigrams: candidates must share
+ * at least half of the query's trigrams, and are ranked by how many they share and
+ * then by edit (Levenshtein) distance. Dishes are added and removed as they gain
+ * their first rating or lose their last, so nothing is ever rebuilt.
+ * Not thread-safe; RatingIndex guards each hall's index with the hall's lock.
+ */
+public class DishSearchIndex {
+    private static final int EXACT = 0;         // Match tiers, best first
+    private static final int NAME_PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int FUZZY = 3;
+    private static final int FUZZY_CANDIDATES = 4;      // Fuzzy candidates edit-checked per suggestion wanted
+    private static final int[] NO_DISHES = new int[0];
+
+    private final Node root = new Node();
+    private final Map<Integer, String> names = new HashMap<>();    // Dish ID -> lowercased name
+    private final Map<Long, Postings> trigrams = new HashMap<>();  // Packed trigram -> dishes containing it
+    private int[] hits = NO_DISHES;     // Dish ID -> trigrams shared with the current query
+    private int[] stamps = NO_DISHES;   // Dish ID -> query that last touched hits (or matched)
+    private int[] found = new int[64];  // Scratch: fuzzy candidates
+    private int query;                  // Current query number, so hits never needs clearing
+
+    /**
+     * Adds a dish to the index.
+     * @param dishId the dish's SymbolTable.DISHES ID
+     * @param dish the dish name
+     * @return true if the dish was not indexed yet
+     */
+    public boolean add(int dishId, String dish) {
+        if (names.containsKey(dishId)) return false;
+        String name = dish.toLowerCase(Locale.ROOT);
+        names.put(dishId, name);
+        for (int start : wordStarts(name)) insert(name, start, dishId);
+        for (long gram : trigramsOf(name)) {
+            trigrams.computeIfAbsent(gram, g -> new Postings()).add(dishId);
+        }
+        if (dishId >= stamps.length) {
+            hits = Arrays.copyOf(hits, Math.max(dishId + 1, hits.length * 2));
+            stamps = Arrays.copyOf(stamps, hits.length);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a dish from the index.
+     * @param dishId the dish's SymbolTable.DISHES ID
+     * @return true if the dish was indexed
+     */
+    public boolean remove(int dishId) {
+        String name = names.remove(dishId);
+        if (name == null) return false;
+        for (int start : wordStarts(name)) delete(name, start, dishId);
+        for (long gram : trigramsOf(name)) {
+            Postings postings = trigrams.get(gram);
+            if (postings != null && postings.remove(dishId) && postings.size == 0) trigrams.remove(gram);
+        }
+        return true;
+    }
+
+    /**
+     * Finds the dishes that best match what the user typed.
+     * @param text the (partial or misspelled) dish name
+     * @param limit the most suggestions to return
+     * @param popularity dish ID -> how often it is rated, to break ties within a tier
+     * @return dish IDs, best match first
+     */
+    public int[] search(String text, int limit, IntUnaryOperator popularity) {
+        String q = text.trim().toLowerCase(Locale.ROOT);
+        if (q.isEmpty() || limit <= 0) return NO_DISHES;
+        query++;
+        PriorityQueue<Match> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder());   // Worst kept match on top
+
+        Node node = root;   // Walk down to the prefix
+        for (int i = 0; i < q.length() && node != null; i++) node = node.child(q.charAt(i));
+        if (node != null) collect(node, q, limit, popularity, best);
+        List<Match> matches = new ArrayList<>(best);
+
+        if (matches.size() < limit) {   // Not enough prefix matches: look for typos
+            int matched = query;
+            query++;    // Fresh hit counts, without forgetting the prefix matches
+            long[] grams = trigramsOf(q);
+            int touched = 0;
+            for (long gram : grams) {
+                Postings postings = trigrams.get(gram);
+                if (postings == null) continue;
+                for (int i = 0; i < postings.size; i++) {
+                    int dishId = postings.ids[i];
+                    if (stamps[dishId] == matched) continue;    // Already a prefix match
+                    if (stamps[dishId] != query) {
+                        stamps[dishId] = query;
+                        hits[dishId] = 0;
+                        if (touched == found.length) found = Arrays.copyOf(found, touched * 2);
+                        found[touched++] = dishId;
+                    }
+                    hits[dishId]++;
+                }
+            }
+            int[] atLeast = new int[grams.length + 2];  // Shared trigrams -> candidates sharing at least that many
+            for (int i = 0; i < touched; i++) atLeast[hits[found[i]]]++;
+            int cutoff = grams.length;
+            for (int h = grams.length; h >= 0; h--) {
+                atLeast[h] += atLeast[h + 1];
+                if (atLeast[h] <= limit * FUZZY_CANDIDATES) cutoff = h;   // Only edit-check the closest few
+            }
+            cutoff = Math.max(cutoff, (grams.length + 1) / 2);  // Must share at least half of the query
+            for (int i = 0; i < touched; i++) {
+                int dishId = found[i];
+                if (hits[dishId] < cutoff) continue;
+                String name = names.get(dishId);
+                matches.add(new Match(dishId, FUZZY, hits[dishId], distance(q, name), popularity.applyAsInt(dishId), name));
+            }
+        }
+
+        Collections.sort(matches);
+        int[] result = new int[Math.min(limit, matches.size())];
+        for (int i = 0; i < result.length; i++) result[i] = matches.get(i).dishId;
+        return result;
+    }
+
+    /**
+     * Adds the name, starting at one of its word starts, to the trie.
+     */
+    private void insert(String name, int start, int dishId) {
+        Node node = root;
+        node.size++;
+        for (int i = start; i < name.length(); i++) {
+            node = node.childOrCreate(name.charAt(i));
+            node.size++;
+        }
+        node.dishes = with(node.dishes, node.dishes.length, dishId);
+    }
+
+    /**
+     * Removes one insert() of the name from the trie. Emptied nodes stay but are skipped.
+     */
+    private void delete(String name, int start, int dishId) {
+        Node node = root;
+        node.size--;
+        for (int i = start; i < name.length(); i++) {
+            node = node.child(name.charAt(i));
+            node.size--;
+        }
+        for (int i = 0; i < node.dishes.length; i++) {
+            if (node.dishes[i] == dishId) {
+                node.dishes = without(node.dishes, i);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Ranks every dish at or below a node as a prefix match, keeping the best limit of
+     * them in the heap (worst on top).
+     */
+    private void collect(Node node, String q, int limit, IntUnaryOperator popularity, PriorityQueue<Match> best) {
+        for (int dishId : node.dishes) {
+            if (stamps[dishId] == query) continue;    // Already matched through another word
+            stamps[dishId] = query;
+            String name = names.get(dishId);
+            int tier = name.equals(q) ? EXACT : name.startsWith(q) ? NAME_PREFIX : WORD_PREFIX;
+            Match match = new Match(dishId, tier, 0, 0, popularity.applyAsInt(dishId), name);
+            if (best.size() < limit) {
+                best.add(match);
+            } else if (match.compareTo(best.peek()) < 0) {  // Better than the worst kept
+                best.poll();
+                best.add(match);
+            }
+        }
+        for (int i = 0; i < node.keys.length; i++) {
+            if (node.children[i].size > 0) collect(node.children[i], q, limit, popularity, best);   // Skip emptied branches
+        }
+    }
+
+    /**
+     * Returns the index of the first letter of every word in the name.
+     */
+    private static List<Integer> wordStarts(String name) {
+        List<Integer> starts = new ArrayList<>();
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != ' ' && (i == 0 || name.charAt(i - 1) == ' ')) starts.add(i);
+        }
+        return starts;
+    }
+
+    /**
+     * Returns the distinct trigrams of the name padded with a space on each side, each
+     * packed into a long (16 bits per char).
+     */
+    private static long[] trigramsOf(String name) {
+        String padded = " " + name + " ";
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+        }
+        long[] result = new long[grams.size()];
+        int i = 0;
+        for (long gram : grams) result[i++] = gram;
+        return result;
+    }
+
+    /**
+     * Levenshtein distance between two strings, keeping two rows of the table.
+     */
+    private static int distance(String a, String b) {
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+            }
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return prev[b.length()];
+    }
+
+    private static int[] with(int[] ids, int at, int id) {
+        int[] grown = new int[ids.length + 1];
+        System.arraycopy(ids, 0, grown, 0, at);
+        grown[at] = id;
+        System.arraycopy(ids, at, grown, at + 1, ids.length - at);
+        return grown;
+    }
+
+    private static int[] without(int[] ids, int at) {
+        int[] shrunk = new int[ids.length - 1];
+        System.arraycopy(ids, 0, shrunk, 0, at);
+        System.arraycopy(ids, at + 1, shrunk, at, ids.length - at - 1);
+        return shrunk;
+    }
+
+    public int size() { return this.names.size(); }    // Number of dishes indexed
+    public boolean contains(int dishId) { return this.names.containsKey(dishId); }  // Whether a dish is indexed
+
+    /**
+     * A trie node. Children are kept in sorted arrays, so traversal is alphabetical.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private int[] dishes = NO_DISHES;   // Dishes whose name (from some word start) ends here
+        private int size;                   // Names ending at or below this node
+
+        Node child(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            return at >= 0 ? children[at] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int at = Arrays.binarySearch(keys, c);
+            if (at >= 0) return children[at];
+            at = -at - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[keys.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            newKeys[at] = c;
+            newChildren[at] = new Node();
+            System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, keys.length - at);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[at];
+        }
+    }
+
+    /**
+     * The dishes containing one trigram, in a growable array (unordered).
+     */
+    private static final class Postings {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int dishId) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = dishId;
+        }
+
+        boolean remove(int dishId) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == dishId) {
+                    ids[i] = ids[--size];   // Order doesn't matter
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A candidate suggestion, ordered best first.
+     */
+    private static final class Match implements Comparable<Match> {
+        private final int dishId;
+        private final int tier;
+        private final int shared;       // Trigrams shared with the query (fuzzy only)
+        private final int distance;     // Edit distance to the query (fuzzy only)
+        private final int popularity;
+        private final String name;
+
+        Match(int dishId, int tier, int shared, int distance, int popularity, String name) {
+            this.dishId = dishId;
+            this.tier = tier;
+            this.shared = shared;
+            this.distance = distance;
+            this.popularity = popularity;
+            this.name = name;
+        }
+
+        @Override
+        public int compareTo(Match other) {
+            if (tier != other.tier) return Integer.compare(tier, other.tier);
+            if (shared != other.shared) return Integer.compare(other.shared, shared);
+            if (distance != other.distance) return Integer.compare(distance, other.distance);
+            if (popularity != other.popularity) return Integer.compare(other.popularity, popularity);
+            return name.compareTo(other.name);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Running rating totals for a single dish at a single dining hall.
+ * Kept up to date by the RatingIndex so averages never require a user scan.
+ * Besides the count and sum it keeps time-weighted sums for DecayedScoring.
+ *
+ * Each rating is weighted by 2^((day - REFERENCE_DAY) / DECAY_HALF_LIFE_DAYS), where
+ * day is when it was made. Weighting by a fixed reference day instead of by age means
+ * the weighted average never needs re-aging (the ratio is the same either way), and a
+ * removed rating subtracts exactly the weight it added.
+ */
+public class DishStats {
+    public static final int DECAY_HALF_LIFE_DAYS = 30;  // A rating's weight halves every 30 days
+    private static final int REFERENCE_DAY = 20_000;    // 2024-10-04, keeps current weights near 1
+    private static final double NOISE = 1e-9;   // Weight left over, relative to the largest, that is only rounding
+
+    private final int dishId;   // The dish's SymbolTable.DISHES ID
+    private final String dish;
+    private long sum;   // Sum of all ratings for this dish
+    private int count;  // Number of ratings for this dish
+    private double decayedSum;      // Ratings times their weights
+    private double decayedCount;    // Sum of the weights
+    private double decayedPeak;     // Largest weight added since the dish last had no ratings
+
+    /**
+     * Constructor initializes empty stats for a dish.
+     * @param dishId the dish's SymbolTable.DISHES ID
+     */
+    public DishStats(int dishId) {
+        this.dishId = dishId;
+        this.dish = SymbolTable.DISHES.name(dishId);
+        this.sum = 0;
+        this.count = 0;
+    }
+
+    /**
+     * Adds a rating to the running totals.
+     * @param rating the rating to add
+     * @param day the day it was made (days since 1970-01-01, 0 if unknown)
+     */
+    public void add(int rating, int day) {
+        this.sum += rating;
+        this.count++;
+        double weight = weight(day);
+        this.decayedSum += rating * weight;
+        this.decayedCount += weight;
+        this.decayedPeak = Math.max(this.decayedPeak, weight);
+    }
+
+    /**
+     * Removes a previously added rating from the running totals.
+     * @param rating the rating to remove
+     * @param day the day it was made, as passed to add
+     */
+    public void remove(int rating, int day) {
+        this.sum -= rating;
+        this.count--;
+        if (this.count == 0) {  // Start clean rather than keep rounding errors
+            this.decayedSum = 0;
+            this.decayedCount = 0;
+            this.decayedPeak = 0;
+        } else {
+            double weight = weight(day);
+            this.decayedSum -= rating * weight;
+            this.decayedCount -= weight;
+        }
+    }
+
+    /**
+     * Returns how much a rating made on the given day counts.
+     */
+    private static double weight(int day) {
+        return Math.pow(2, (double) (day - REFERENCE_DAY) / DECAY_HALF_LIFE_DAYS);
+    }
+
+    /**
+     * Computes the average rating for the dish.
+     * @return the average rating, or 0 if there are no ratings
+     */
+    public double getAverage() {
+        return this.count == 0 ? 0 : (double) this.sum / this.count;
+    }
+
+    /**
+     * Computes the average rating with recent ratings weighted more heavily.
+     * If the remaining weight is too small to tell from rounding left by removed
+     * ratings (only much older ratings are left), the plain average is used.
+     * @return the decayed average, or 0 if there are no ratings
+     */
+    public double getDecayedAverage() {
+        if (this.decayedCount <= this.decayedPeak * NOISE) return getAverage();
+        return this.decayedSum / this.decayedCount;
+    }
+
+    public int getDishId() { return this.dishId; }  // Get the dish ID
+    public String getDish() { return this.dish; } // Get the dish name
+    public long getSum() { return this.sum; } // Get the sum of ratings
+    public int getCount() { return this.count; }  // Get the number of ratings
+}
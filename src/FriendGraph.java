@@ -0,0 +1,238 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Compact undirected friend graph. Every user name gets a dense int ID from a private
+ * SymbolTable, and adjacency lives in compressed sparse rows: one offsets array and
+ * one array of sorted neighbor IDs, 4 bytes per direction of a friendship instead of a
+ * HashSet entry per direction.
+ *
+ * New friendships go into a small delta (a sorted int array per user who gained a
+ * friend) and are merged into the rows once the delta grows past an eighth of the
+ * graph, so adding an edge stays cheap and the merge cost is amortized.
+ * Not thread-safe.
+ */
+public class FriendGraph {
+    private static final int MIN_DELTA = 4096;  // Half-edges the delta may hold before a merge is considered
+    private static final int[] NO_FRIENDS = new int[0];
+
+    private final SymbolTable users = new SymbolTable(UnaryOperator.identity());   // User name <-> ID
+    private int[] offsets;      // ID -> start of its row in targets (rows beyond the last merge are empty)
+    private int[] targets;      // Neighbor IDs, sorted within each row
+    private final Map<Integer, int[]> delta;    // ID -> sorted neighbors added since the last merge
+    private int deltaSize;      // Half-edges in the delta
+    private long edges;         // Friendships (each counted once)
+    private int merges;         // Merges performed so far
+
+    /**
+     * Constructor initializes an empty graph.
+     */
+    public FriendGraph() {
+        this.offsets = new int[1];
+        this.targets = NO_FRIENDS;
+        this.delta = new HashMap<>();
+    }
+
+    /**
+     * Adds a user, or returns their existing ID.
+     * @param userName the user's name
+     * @return the user's ID
+     */
+    public int addUser(String userName) {
+        return users.intern(userName);
+    }
+
+    /**
+     * Looks up a user's ID without adding them.
+     * @param userName the user's name
+     * @return the user's ID, or -1 if they are not in the graph
+     */
+    public int find(String userName) {
+        return users.find(userName);
+    }
+
+    /**
+     * Returns a user's name.
+     * @param id the user's ID
+     * @return the name the user was added with
+     */
+    public String name(int id) {
+        return users.name(id);
+    }
+
+    /**
+     * Adds a friendship in both directions.
+     * @param a one user's ID
+     * @param b the other user's ID
+     * @return true if the friendship is new
+     */
+    public boolean addEdge(int a, int b) {
+        if (hasEdge(a, b)) return false;
+        insertDelta(a, b);
+        if (a != b) insertDelta(b, a);
+        edges++;
+        if (deltaSize > Math.max(MIN_DELTA, targets.length / 8)) merge();
+        return true;
+    }
+
+    /**
+     * Checks whether two users are friends, by binary search in both rows.
+     * @param a one user's ID
+     * @param b the other user's ID
+     * @return true if they are friends
+     */
+    public boolean hasEdge(int a, int b) {
+        if (a < offsets.length - 1 && Arrays.binarySearch(targets, offsets[a], offsets[a + 1], b) >= 0) return true;
+        int[] added = added(a);
+        return added != null && Arrays.binarySearch(added, b) >= 0;
+    }
+
+    /**
+     * Counts a user's friends.
+     * @param id the user's ID
+     * @return the number of friends
+     */
+    public int degree(int id) {
+        int[] added = added(id);
+        return csrDegree(id) + (added == null ? 0 : added.length);
+    }
+
+    /**
+     * Calls the action with every friend of a user, without allocating.
+     * @param id the user's ID
+     * @param action called once per friend ID
+     */
+    public void forEachNeighbor(int id, IntConsumer action) {
+        if (id < offsets.length - 1) {
+            int[] row = targets;    // Locals, so the loop doesn't reload fields around each callback
+            for (int i = offsets[id], end = offsets[id + 1]; i < end; i++) action.accept(row[i]);
+        }
+        int[] added = added(id);
+        if (added != null) {
+            for (int friend : added) action.accept(friend);
+        }
+    }
+
+    /**
+     * Adds every friend of a user who is in a filter set and not yet in a seen set to
+     * the seen set and to an output list. The sets are bitsets indexed by user ID. This
+     * is a plain loop over the row with no callback per friend, for hot multi-hop searches.
+     * @param id the user's ID
+     * @param filter bitset of users that may be collected
+     * @param seen bitset of users already collected (updated)
+     * @param out receives the collected IDs (must have room for every user in filter)
+     * @param count the number of IDs already in out
+     * @return the new number of IDs in out
+     */
+    public int collectNeighbors(int id, long[] filter, long[] seen, int[] out, int count) {
+        if (id < offsets.length - 1) {
+            int[] row = targets;
+            for (int i = offsets[id], end = offsets[id + 1]; i < end; i++) {
+                int friend = row[i];
+                long bit = 1L << friend;
+                int word = friend >>> 6;
+                if ((filter[word] & bit) != 0 && (seen[word] & bit) == 0) {
+                    seen[word] |= bit;
+                    out[count++] = friend;
+                }
+            }
+        }
+        int[] added = added(id);
+        if (added != null) {
+            for (int friend : added) {
+                long bit = 1L << friend;
+                int word = friend >>> 6;
+                if ((filter[word] & bit) != 0 && (seen[word] & bit) == 0) {
+                    seen[word] |= bit;
+                    out[count++] = friend;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns a user's friends.
+     * @param id the user's ID
+     * @return a new sorted array of friend IDs
+     */
+    public int[] neighbors(int id) {
+        int[] row = id < offsets.length - 1 ? Arrays.copyOfRange(targets, offsets[id], offsets[id + 1]) : NO_FRIENDS;
+        int[] added = delta.get(id);
+        return added == null ? row : mergeSorted(row, added);
+    }
+
+    /**
+     * Folds the delta into the sparse rows. Called automatically as the delta grows.
+     */
+    public void merge() {
+        int n = users.size();
+        int[] newOffsets = new int[n + 1];
+        for (int id = 0; id < n; id++) newOffsets[id + 1] = newOffsets[id] + degree(id);
+        int[] newTargets = new int[newOffsets[n]];
+        for (int id = 0; id < n; id++) {
+            int[] added = delta.get(id);
+            int from = id < offsets.length - 1 ? offsets[id] : 0;
+            int to = id < offsets.length - 1 ? offsets[id + 1] : 0;
+            if (added == null) {
+                System.arraycopy(targets, from, newTargets, newOffsets[id], to - from);
+                continue;
+            }
+            int i = from, j = 0, k = newOffsets[id];  // Merge two sorted, disjoint lists
+            while (i < to || j < added.length) {
+                if (j == added.length || (i < to && targets[i] < added[j])) newTargets[k++] = targets[i++];
+                else newTargets[k++] = added[j++];
+            }
+        }
+        this.offsets = newOffsets;
+        this.targets = newTargets;
+        this.delta.clear();
+        this.deltaSize = 0;
+        this.merges++;
+    }
+
+    /**
+     * Adds b to a's delta row, keeping it sorted.
+     */
+    private void insertDelta(int a, int b) {
+        int[] row = delta.getOrDefault(a, NO_FRIENDS);
+        int at = -Arrays.binarySearch(row, b) - 1;
+        int[] grown = new int[row.length + 1];
+        System.arraycopy(row, 0, grown, 0, at);
+        grown[at] = b;
+        System.arraycopy(row, at, grown, at + 1, row.length - at);
+        delta.put(a, grown);
+        deltaSize++;
+    }
+
+    /**
+     * Returns a user's delta row, skipping the (boxing) map lookup when the delta is empty.
+     */
+    private int[] added(int id) {
+        return deltaSize == 0 ? null : delta.get(id);
+    }
+
+    private int csrDegree(int id) {
+        return id < offsets.length - 1 ? offsets[id + 1] - offsets[id] : 0;
+    }
+
+    private static int[] mergeSorted(int[] x, int[] y) {
+        int[] out = new int[x.length + y.length];
+        int i = 0, j = 0, k = 0;
+        while (i < x.length || j < y.length) {
+            if (j == y.length || (i < x.length && x[i] < y[j])) out[k++] = x[i++];
+            else out[k++] = y[j++];
+        }
+        return out;
+    }
+
+    public int size() { return this.users.size(); }    // Number of users
+    public long getEdgeCount() { return this.edges; }  // Number of friendships
+    public int getDeltaSize() { return this.deltaSize; }   // Half-edges waiting to be merged
+    public int getMerges() { return this.merges; }     // Merges performed so far
+}
@@ -1,4 +1,6 @@
 import java.util.*;
+import java.util.function.IntConsumer;
+import java.util.function.LongSupplier;
 
 /**
  * @author Tommy Ryan & Miles Chiang
@@ -6,20 +8,106 @@ import java.util.*;
  * Represents a system for polling friends about their dining hall status.
  * It allows users to add friends, set their dining hall status, and check
  * which friends are currently at a dining hall.
+ *
+ * Friendships live in a FriendGraph, which numbers users densely and stores adjacency
+ * as sorted int arrays, so each user costs a few ints instead of a HashSet of names.
+ * Each user's hall is kept in an int array indexed by user ID.
+ *
+ * Besides each user's hall, it keeps the reverse index: the set of users present at
+ * each hall. Friend queries intersect a user's friend set with that index and iterate
+ * whichever side is smaller, so a user with thousands of friends pays only for the
+ * people actually checked in, and vice versa.
+ *
+ * rankHallsByNetwork looks two hops out: friends and friends of friends. It runs a
+ * bounded BFS with reusable visited bitsets (or, when fewer people are checked in than
+ * the BFS would touch, checks each checked-in user instead) and caches each user's
+ * ranking for a couple of seconds.
+ *
+ * Check-ins expire. Each one carries a time to live (by default the hall's meal
+ * length) and is filed in a TimerWheel, which every call advances to the current
+ * time, so expired users drop out of every query without any scan.
  */
 public class FriendPollingSystem implements InterfaceFriendPollingSystem {
-    private Map<String, Set<String>> friendGraph;   // Stores each user and their set of friends
-    private Map<String, String> diningHallStatus;   // Stores which dining hall each user is at (null if not at one)
-    private static final Set<String> VALID_DINING_HALLS = Set.of(   // Set of valid dining halls
+    private static final int NO_HALL = -1;
+    private static final long MAX_VISITS = 200_000;     // Edges a two-hop search may follow (checked per friend)
+    private static final long RANKING_TTL = 2000;  // How long a cached ranking stays fresh (in ms)
+    private static final int RANKING_CACHE_SIZE = 1024;  // Users whose rankings are cached
+    public static final long DEFAULT_TTL = 2_700_000;   // Check-in lifetime for halls without a meal length (45 min)
+    private static final long PRESENCE_TICK = 1000;     // Expiry resolution (in ms)
+
+    private FriendGraph friendGraph;    // Stores each user and their friends
+    private int[] hallOf;   // User ID -> hall ID they are at (NO_HALL if not at one)
+    private long[] checkedIn;   // User ID -> bit set while at a hall (small enough to stay in cache)
+    private Map<Integer, Set<Integer>> presentAt;   // Hall ID -> user IDs currently checked in there
+    private int presentCount;   // Users checked into any hall
+    private final LongSupplier clock;   // Current time (in ms)
+    private final TimerWheel presence;  // User ID -> when their check-in expires
+    private final Map<Integer, Long> ttlByHall = new HashMap<>();  // Hall ID -> check-in lifetime (in ms)
+    private final IntConsumer expireUser = id -> moveUser(id, NO_HALL);
+    private long expired;       // Check-ins that timed out
+    private long[] seen = new long[0];      // User ID -> bit set once the current search has reached them
+    private long[] friendBits = new long[0];    // User ID -> bit set if a direct friend of the searching user
+    private int[] hallFriends;  // Hall ID -> friends there (current search)
+    private int[] hallOthers;   // Hall ID -> friends of friends there (current search)
+    private int[] reached = new int[0]; // Checked-in friends of friends found by the current search
+    private int reachedCount;   // Entries used in reached
+    private long visitsLeft;    // Edge budget left in the current search
+    private boolean found;      // Set by the present-user check
+    private final IntConsumer visitFriend = this::visitFriend;
+    private final IntConsumer expandFriend = this::expandFriend;
+    private final IntConsumer checkLink = id -> { if (isSet(friendBits, id)) found = true; };
+    private final Map<Integer, CachedRanking> rankings = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, CachedRanking> eldest) {
+            return size() > RANKING_CACHE_SIZE;   // Least recently asked user goes first
+        }
+    };
+    private long rankingHits;   // Rankings served from the cache
+    private long rankingMisses; // Rankings computed
+    static final List<String> VALID_DINING_HALLS = List.of(  // Valid dining halls, as displayed
         "Frank", "Frary", "Collins", "Oldenborg", "Malott", "Hoch", "McConnel"
     );
+    static final Map<Integer, String> HALL_NAMES = new HashMap<>();  // Hall ID -> display name
+    static {
+        for (String hall : VALID_DINING_HALLS) {
+            HALL_NAMES.put(SymbolTable.HALLS.intern(hall), hall);
+        }
+    }
 
     /**
-     * Constructor initializes the friend graph and dining hall status maps.
+     * Constructor initializes the friend graph and dining hall status maps,
+     * with check-ins expiring on the wall clock.
      */
     public FriendPollingSystem() {
-        this.friendGraph = new HashMap<>();
-        this.diningHallStatus = new HashMap<>();
+        this(System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor initializes the friend graph and dining hall status maps.
+     * @param clock the current time in milliseconds (e.g. simulation time)
+     */
+    public FriendPollingSystem(LongSupplier clock) {
+        this.clock = clock;
+        this.presence = new TimerWheel(PRESENCE_TICK, clock.getAsLong());
+        this.friendGraph = new FriendGraph();
+        this.hallOf = new int[64];
+        this.checkedIn = new long[1];
+        this.presentAt = new HashMap<>();
+        for (Integer hallId : HALL_NAMES.keySet()) {
+            this.presentAt.put(hallId, new HashSet<>());
+        }
+    }
+
+    /**
+     * Uses each hall's meal length as the lifetime of a check-in there.
+     * @param halls the dining halls
+     */
+    public void setPresenceTtls(List<DiningHall> halls) {
+        for (DiningHall dh : halls) {
+            int hallId = SymbolTable.HALLS.find(dh.getName());
+            if (HALL_NAMES.containsKey(hallId)) ttlByHall.put(hallId, dh.getMealLength());
+        }
     }
 
     /**
@@ -27,10 +115,13 @@ public class FriendPollingSystem implements InterfaceFriendPollingSystem {
      * @param userName the name of the user to add
      */
     public void addUser(String userName) {
-        if (!friendGraph.containsKey(userName)) {   // Check if user already exists
-            friendGraph.put(userName, new HashSet<>()); // Initialize with an empty set of friends
-            diningHallStatus.put(userName, null); // null means not at a dining hall
+        if (friendGraph.find(userName) >= 0) return;    // Check if user already exists
+        int id = friendGraph.addUser(userName);
+        if (id >= hallOf.length) {
+            hallOf = Arrays.copyOf(hallOf, Math.max(id + 1, hallOf.length * 2));
+            checkedIn = Arrays.copyOf(checkedIn, (hallOf.length + 63) >>> 6);
         }
+        hallOf[id] = NO_HALL;   // Not at a dining hall
     }
 
     /**
@@ -40,9 +131,10 @@ public class FriendPollingSystem implements InterfaceFriendPollingSystem {
      * @param user2 the second user's name
      */
     public void addFriendship(String user1, String user2) {
-        if (friendGraph.containsKey(user1) && friendGraph.containsKey(user2)) { // Check if both users exist
-            friendGraph.get(user1).add(user2);
-            friendGraph.get(user2).add(user1);
+        int id1 = friendGraph.find(user1);
+        int id2 = friendGraph.find(user2);
+        if (id1 >= 0 && id2 >= 0) { // Check if both users exist
+            friendGraph.addEdge(id1, id2);
         }
     }
 
@@ -50,33 +142,319 @@ public class FriendPollingSystem implements InterfaceFriendPollingSystem {
      * Sets the dining hall status for a user.
      * If the dining hall is null, the user is marked as not at any dining hall.
      * If the dining hall is not valid, prints an error and does not update.
+     * Hall names are matched through the shared SymbolTable, so case and spacing don't matter.
+     * The check-in expires after the hall's meal length.
      * @param userName the user's name
      * @param diningHall the dining hall name (or null)
      */
     public void setDiningHall(String userName, String diningHall) {
-        if (!diningHallStatus.containsKey(userName)) return;    // Check if user exists
-        if (diningHall == null || VALID_DINING_HALLS.contains(diningHall)) {    // Check if dining hall is valid
-            diningHallStatus.put(userName, diningHall);
+        setDiningHall(userName, diningHall, -1);
+    }
+
+    /**
+     * Sets the dining hall status for a user, expiring after a given time.
+     * @param userName the user's name
+     * @param diningHall the dining hall name (or null)
+     * @param ttlMillis how long the check-in lasts (in ms), or -1 for the hall's default
+     */
+    public void setDiningHall(String userName, String diningHall, long ttlMillis) {
+        expirePresence();
+        int userId = friendGraph.find(userName);
+        if (userId < 0) return;    // Check if user exists
+        if (diningHall == null) {
+            moveUser(userId, NO_HALL);
+            presence.cancel(userId);
+            return;
+        }
+        int hallId = SymbolTable.HALLS.find(diningHall);
+        if (HALL_NAMES.containsKey(hallId)) {   // Check if dining hall is valid
+            moveUser(userId, hallId);
+            long ttl = ttlMillis >= 0 ? ttlMillis : ttlByHall.getOrDefault(hallId, DEFAULT_TTL);
+            presence.schedule(userId, clock.getAsLong() + ttl);     // Checking in again restarts the clock
         } else {
             System.out.println("Invalid dining hall: " + diningHall);   // Print error message
         }
     }
 
+    /**
+     * Records a user's new hall and moves them between the per-hall sets.
+     * @param userId the user's ID
+     * @param hallId the new hall ID (or NO_HALL if not at one)
+     */
+    private void moveUser(int userId, int hallId) {
+        int previous = hallOf[userId];
+        if (previous == hallId) return;   // Already there
+        hallOf[userId] = hallId;
+        if (hallId != NO_HALL) checkedIn[userId >>> 6] |= 1L << userId;
+        else checkedIn[userId >>> 6] &= ~(1L << userId);
+        if (previous != NO_HALL) {
+            presentAt.get(previous).remove(userId);
+            presentCount--;
+        }
+        if (hallId != NO_HALL) {
+            presentAt.get(hallId).add(userId);
+            presentCount++;
+        }
+    }
+
+    /**
+     * Clears every check-in whose time is up. Called at the start of every operation.
+     */
+    private void expirePresence() {
+        int count = presence.advance(clock.getAsLong(), expireUser);
+        if (count > 0) {
+            expired += count;
+            rankings.clear();   // Cached rankings may count people who have left
+        }
+    }
+
     /**
      * Returns a map of friends who are currently at a dining hall, along with their dining hall names.
      * @param userName the name of the user to check
      * @return a map of friends and their dining halls
      */
     public Map<String, String> getFriendsAtDiningHalls(String userName) {
+        expirePresence();
         Map<String, String> result = new HashMap<>();
-        if (!friendGraph.containsKey(userName)) return result;   // Check if user exists
+        int userId = friendGraph.find(userName);
+        if (userId < 0) return result;   // Check if user exists
 
-        for (String friend : friendGraph.get(userName)) {   // Iterate through friends
-            String hall = diningHallStatus.get(friend);
-            if (hall != null) {
-                result.put(friend, hall);
+        if (friendGraph.degree(userId) <= presentCount) {
+            friendGraph.forEachNeighbor(userId, friend -> {   // Iterate through friends
+                if (hallOf[friend] != NO_HALL) {
+                    result.put(friendGraph.name(friend), HALL_NAMES.get(hallOf[friend]));
+                }
+            });
+        } else {
+            for (Map.Entry<Integer, Set<Integer>> hall : presentAt.entrySet()) {   // Fewer people checked in than friends
+                for (int user : hall.getValue()) {
+                    if (friendGraph.hasEdge(userId, user)) result.put(friendGraph.name(user), HALL_NAMES.get(hall.getKey()));
+                }
             }
         }
         return result;  // Return map of friends at dining halls
     }
+
+    /**
+     * Returns the friends of a user who are checked into one dining hall.
+     * @param userName the name of the user to check
+     * @param diningHall the dining hall name
+     * @return the friends at that hall (empty if the user or hall is unknown or null)
+     */
+    public Set<String> getFriendsAt(String userName, String diningHall) {
+        expirePresence();
+        Set<String> result = new HashSet<>();
+        if (userName == null || diningHall == null) return result;  // Name lookups have no null keys
+        int userId = friendGraph.find(userName);
+        int hallId = SymbolTable.HALLS.find(diningHall);
+        Set<Integer> present = presentAt.get(hallId);
+        if (userId < 0 || present == null) return result;   // Unknown user or hall
+
+        if (friendGraph.degree(userId) <= present.size()) {
+            friendGraph.forEachNeighbor(userId, friend -> {
+                if (hallOf[friend] == hallId) result.add(friendGraph.name(friend));
+            });
+        } else {
+            for (int user : present) {
+                if (friendGraph.hasEdge(userId, user)) result.add(friendGraph.name(user));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts a user's friends at every dining hall.
+     * @param userName the name of the user to check
+     * @return hall name -> number of friends there, for every hall in display order
+     */
+    public Map<String, Integer> getFriendCountsByHall(String userName) {
+        expirePresence();
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (String hall : VALID_DINING_HALLS) result.put(hall, 0);
+        int userId = friendGraph.find(userName);
+        if (userId < 0) return result;  // Check if user exists
+
+        if (friendGraph.degree(userId) <= presentCount) {
+            friendGraph.forEachNeighbor(userId, friend -> {
+                if (hallOf[friend] != NO_HALL) result.merge(HALL_NAMES.get(hallOf[friend]), 1, Integer::sum);
+            });
+        } else {
+            for (Map.Entry<Integer, Set<Integer>> hall : presentAt.entrySet()) {
+                int count = 0;
+                for (int user : hall.getValue()) {
+                    if (friendGraph.hasEdge(userId, user)) count++;
+                }
+                result.put(HALL_NAMES.get(hall.getKey()), count);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns how many users are checked into a dining hall.
+     * @param diningHall the dining hall name
+     * @return the number of users there (0 if the hall is unknown or null)
+     */
+    public int getPresentCount(String diningHall) {
+        if (diningHall == null) return 0;
+        expirePresence();
+        Set<Integer> present = presentAt.get(SymbolTable.HALLS.find(diningHall));
+        return present == null ? 0 : present.size();
+    }
+
+    /**
+     * Ranks the dining halls by how many of a user's friends and friends of friends
+     * are there right now. Results are cached per user for a couple of seconds, and
+     * dropped early if a friendship is added.
+     * @param userName the name of the user to check
+     * @return halls with at least one friend or friend of a friend, busiest first
+     */
+    public List<HallActivity> rankHallsByNetwork(String userName) {
+        expirePresence();
+        int userId = friendGraph.find(userName);
+        if (userId < 0) return List.of();   // Check if user exists
+
+        long now = clock.getAsLong();   // Same clock as check-ins, so simulated time ages the cache too
+        CachedRanking cached = rankings.get(userId);
+        if (cached != null && cached.edges == friendGraph.getEdgeCount() && now - cached.at < RANKING_TTL) {
+            rankingHits++;
+            return cached.ranking;
+        }
+        rankingMisses++;
+        List<HallActivity> ranking = searchNetwork(userId);
+        rankings.put(userId, new CachedRanking(ranking, now, friendGraph.getEdgeCount()));
+        return ranking;
+    }
+
+    /**
+     * Counts friends (1 hop) and friends of friends (2 hops) at every hall.
+     */
+    private List<HallActivity> searchNetwork(int userId) {
+        startSearch();
+        set(seen, userId);
+        visitsLeft = 0;     // Friends' degrees, i.e. the cost of a second hop
+        friendGraph.forEachNeighbor(userId, visitFriend);
+
+        double averageDegree = 2.0 * friendGraph.getEdgeCount() / Math.max(1, friendGraph.size());
+        if (visitsLeft <= presentCount * (averageDegree + 1)) {
+            visitsLeft = MAX_VISITS;
+            friendGraph.forEachNeighbor(userId, expandFriend);  // Second hop from every friend
+            for (int i = 0; i < reachedCount; i++) hallOthers[hallOf[reached[i]]]++;
+        } else {
+            for (Map.Entry<Integer, Set<Integer>> hall : presentAt.entrySet()) { // Cheaper to check who is checked in
+                for (int user : hall.getValue()) {
+                    if (isSet(seen, user)) continue;    // The user or one of their friends
+                    found = false;
+                    friendGraph.forEachNeighbor(user, checkLink);
+                    if (found) hallOthers[hall.getKey()]++;
+                }
+            }
+        }
+
+        List<HallActivity> ranking = new ArrayList<>();
+        for (String hall : VALID_DINING_HALLS) {
+            int hallId = SymbolTable.HALLS.find(hall);
+            if (hallFriends[hallId] + hallOthers[hallId] > 0) {
+                ranking.add(new HallActivity(hall, hallFriends[hallId], hallOthers[hallId]));
+            }
+        }
+        ranking.sort(Comparator.comparingInt(HallActivity::getTotal).reversed()
+            .thenComparing(Comparator.comparingInt(HallActivity::getFriends).reversed()));  // Stable: ties keep display order
+        return Collections.unmodifiableList(ranking);
+    }
+
+    /**
+     * Starts a new search, reusing the bitsets. At one bit per user they stay in cache,
+     * unlike per-user int stamps, which made every second-hop visit a cache miss.
+     */
+    private void startSearch() {
+        int words = (friendGraph.size() + 63) >>> 6;
+        if (seen.length < words) {
+            seen = new long[Math.max(words, seen.length * 2)];
+            friendBits = new long[seen.length];
+        } else {
+            Arrays.fill(seen, 0, words, 0);
+            Arrays.fill(friendBits, 0, words, 0);
+        }
+        if (reached.length < presentCount) reached = new int[Math.max(presentCount, reached.length * 2)];
+        reachedCount = 0;
+        int halls = SymbolTable.HALLS.size();
+        if (hallFriends == null || hallFriends.length < halls) {
+            hallFriends = new int[halls];
+            hallOthers = new int[halls];
+        } else {
+            Arrays.fill(hallFriends, 0);
+            Arrays.fill(hallOthers, 0);
+        }
+    }
+
+    private void visitFriend(int friend) {
+        if (isSet(seen, friend)) return;    // Self-friendship
+        set(seen, friend);
+        set(friendBits, friend);
+        if (hallOf[friend] != NO_HALL) hallFriends[hallOf[friend]]++;
+        visitsLeft += friendGraph.degree(friend);
+    }
+
+    private void expandFriend(int friend) {
+        if (!isSet(friendBits, friend) || visitsLeft <= 0) return;  // Not a friend, or out of budget
+        visitsLeft -= friendGraph.degree(friend);
+        reachedCount = friendGraph.collectNeighbors(friend, checkedIn, seen, reached, reachedCount);
+    }
+
+    private static boolean isSet(long[] bits, int id) {
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private static void set(long[] bits, int id) {
+        bits[id >>> 6] |= 1L << id;
+    }
+
+    /**
+     * Folds recently added friendships into the friend graph's compact rows now,
+     * instead of waiting for the graph to do it as they pile up.
+     */
+    public void compactFriendships() {
+        friendGraph.merge();
+    }
+
+    public long getFriendshipCount() { return this.friendGraph.getEdgeCount(); }   // Number of friendships
+    public long getRankingHits() { return this.rankingHits; }  // Rankings served from the cache
+    public long getRankingMisses() { return this.rankingMisses; }  // Rankings computed
+    public long getExpired() { return this.expired; }  // Check-ins that timed out
+
+    /**
+     * How much of a user's network is at one dining hall.
+     */
+    public static final class HallActivity {
+        private final String hall;
+        private final int friends;          // Direct friends there
+        private final int friendsOfFriends; // Friends of friends there (not direct friends)
+
+        private HallActivity(String hall, int friends, int friendsOfFriends) {
+            this.hall = hall;
+            this.friends = friends;
+            this.friendsOfFriends = friendsOfFriends;
+        }
+
+        public String getHall() { return this.hall; }  // Hall display name
+        public int getFriends() { return this.friends; }   // Direct friends there
+        public int getFriendsOfFriends() { return this.friendsOfFriends; }     // Friends of friends there
+        public int getTotal() { return this.friends + this.friendsOfFriends; }    // Everyone from the network there
+    }
+
+    /**
+     * A ranking and when it was computed.
+     */
+    private static final class CachedRanking {
+        private final List<HallActivity> ranking;
+        private final long at;      // Clock time when computed (in ms)
+        private final long edges;   // Friendships in the graph when computed
+
+        CachedRanking(List<HallActivity> ranking, long at, long edges) {
+            this.ranking = ranking;
+            this.at = at;
+            this.edges = edges;
+        }
+    }
 }
@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Picks an open dining hall with probability proportional to its popularity in O(1),
+ * using Vose's alias method. The alias table only covers halls that are open, so
+ * closed halls are never drawn and never need a retry. update() rebuilds the table
+ * only when the set of open halls or their weights actually change.
+ *
+ * The table is immutable once built and published through a volatile field, so any
+ * number of threads can sample at once, each with its own random generator.
+ */
+public class HallSampler {
+    /** A hall's weight at a point in simulation time. */
+    public interface PopularityCurve {
+        /**
+         * Returns the hall's weight at the given time.
+         * @param hall the dining hall
+         * @param simTime the current simulation time
+         * @return a non-negative weight
+         */
+        double weight(DiningHall hall, long simTime);
+    }
+
+    /** Every hall always weighs its fixed popularity score. */
+    public static final PopularityCurve CONSTANT = (hall, simTime) -> hall.getPopularity();
+
+    private final List<DiningHall> halls;
+    private final PopularityCurve curve;
+    private final double[] weights; // Hall index -> weight the current table was built with (0 if closed)
+    private volatile Table table;   // Current alias table
+    private long rebuilds;          // Tables built so far
+
+    /**
+     * Constructor builds a sampler that weighs halls by their popularity score.
+     * @param halls the dining halls to choose from
+     */
+    public HallSampler(List<DiningHall> halls) {
+        this(halls, CONSTANT);
+    }
+
+    /**
+     * Constructor builds a sampler with time-varying weights.
+     * @param halls the dining halls to choose from
+     * @param curve the weight of each hall over time
+     */
+    public HallSampler(List<DiningHall> halls, PopularityCurve curve) {
+        this.halls = halls;
+        this.curve = curve;
+        this.weights = new double[halls.size()];
+        this.table = new Table(new double[0], new int[0], new int[0]);
+    }
+
+    /**
+     * Refreshes the table for the current time. Halls whose status is "closed" get
+     * weight 0. The weights are compared in place, so an update that changes nothing
+     * allocates nothing and rebuilds nothing.
+     * @param simTime the current simulation time
+     * @return true if the table was rebuilt
+     */
+    public synchronized boolean update(long simTime) {
+        boolean changed = false;
+        for (int i = 0; i < weights.length; i++) {
+            DiningHall hall = halls.get(i);
+            double weight = hall.getStatus().equals("closed") ? 0 : Math.max(0, curve.weight(hall, simTime));
+            if (Double.compare(weight, weights[i]) != 0) {
+                weights[i] = weight;
+                changed = true;
+            }
+        }
+        if (!changed) return false;     // Same halls open, same weights
+        this.table = build(weights);    // build copies what it needs, so weights can keep changing
+        this.rebuilds++;
+        return true;
+    }
+
+    /**
+     * Draws a hall using the calling thread's ThreadLocalRandom.
+     * @return an open hall, or null if every hall is closed
+     */
+    public DiningHall sample() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    /**
+     * Draws a hall using the given random generator (seed it for repeatable runs).
+     * @param random the random generator to draw from
+     * @return an open hall, or null if every hall is closed
+     */
+    public DiningHall sample(RandomGenerator random) {
+        int index = sampleIndex(random);
+        return index < 0 ? null : halls.get(index);
+    }
+
+    /**
+     * Draws a hall's position in the hall list in O(1): one column pick, one coin flip.
+     * @param random the random generator to draw from
+     * @return the index of an open hall, or -1 if every hall is closed
+     */
+    public int sampleIndex(RandomGenerator random) {
+        Table t = this.table;
+        int n = t.prob.length;
+        if (n == 0) return -1;
+        int column = random.nextInt(n);
+        return random.nextDouble() < t.prob[column] ? t.halls[column] : t.halls[t.alias[column]];
+    }
+
+    /**
+     * Splits a cohort of arrivals across open halls, one draw per diner, without
+     * allocating anything.
+     * @param count the number of diners arriving
+     * @param random the random generator to draw from
+     * @param perHall filled with the number of diners per hall index (length = number of halls)
+     * @return the number of diners placed (0 if every hall is closed)
+     */
+    public int distribute(int count, RandomGenerator random, int[] perHall) {
+        Arrays.fill(perHall, 0);
+        for (int n = 0; n < count; n++) {
+            int index = sampleIndex(random);
+            if (index < 0) return 0;    // Every hall is closed
+            perHall[index]++;
+        }
+        return count;
+    }
+
+    public long getRebuilds() { return this.rebuilds; }    // Tables built so far
+    public int getOpenCount() { return this.table.prob.length; }   // Halls the current table can draw
+
+    /**
+     * Builds an alias table over the halls with positive weight (Vose's method).
+     */
+    private static Table build(double[] weights) {
+        int n = 0;
+        double total = 0;
+        for (double w : weights) {
+            if (w > 0) {
+                n++;
+                total += w;
+            }
+        }
+        int[] hallOf = new int[n];  // Column -> hall index
+        double[] prob = new double[n];
+        int[] alias = new int[n];
+        int[] small = new int[n];   // Columns below the average weight
+        int[] large = new int[n];   // Columns at or above it
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0, c = 0; i < weights.length; i++) {
+            if (weights[i] <= 0) continue;
+            hallOf[c] = i;
+            prob[c] = weights[i] * n / total;   // Scaled so the average column is 1
+            if (prob[c] < 1) small[smallCount++] = c;
+            else large[largeCount++] = c;
+            c++;
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            alias[s] = l;   // Top up the small column with the large one
+            prob[l] = (prob[l] + prob[s]) - 1;
+            if (prob[l] < 1) small[smallCount++] = l;
+            else large[largeCount++] = l;
+        }
+        while (largeCount > 0) prob[large[--largeCount]] = 1;   // Leftovers are full columns
+        while (smallCount > 0) prob[small[--smallCount]] = 1;   // Only rounding error left
+        return new Table(prob, alias, hallOf);
+    }
+
+    /**
+     * An immutable alias table. Column c yields halls[c] with probability prob[c],
+     * otherwise halls[alias[c]].
+     */
+    private static final class Table {
+        private final double[] prob;
+        private final int[] alias;
+        private final int[] halls;
+
+        Table(double[] prob, int[] alias, int[] halls) {
+            this.prob = prob;
+            this.alias = alias;
+            this.halls = halls;
+        }
+    }
+}
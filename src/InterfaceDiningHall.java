@@ -1,7 +1,6 @@
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
 
 /**
  * @author Tommy Ryan & Miles Chiang
@@ -17,6 +16,13 @@ public interface InterfaceDiningHall {
      */
     void enqueue(User user, long simTime);
 
+    /**
+     * Admits a group of anonymous diners in one operation.
+     * @param count the number of diners entering
+     * @param simTime the current simulation time
+     */
+    void enqueueBatch(int count, long simTime);
+
     /**
      * Removes users whose meal time has expired based on simulation time.
      * @param simTime the current simulation time
@@ -48,6 +54,7 @@ public interface InterfaceDiningHall {
     String getName();   // Getter for dining hall name
     String getStatus(); // Getter for current status
     int getMaxSize();   // Getter for max size
+    long getMealLength();   // Getter for meal length
     int getPopularity();    // Getter for popularity
-    PriorityQueue<User> getQueue(); // Getter for the queue
+    int getOccupancy();     // Getter for the number of diners inside
 }
@@ -1,4 +1,5 @@
 import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Tommy Ryan & Miles Chiang
@@ -26,7 +27,8 @@ public interface InterfaceFriendPollingSystem {
     /**
      * Sets the dining hall status for a user.
      * If the dining hall is null, the user is marked as not at any dining hall.
-     * If the dining hall is not valid, prints an error and does not update.
+     * If the dining hall is not valid, reports an error and does not update.
+     * A check-in expires on its own after a while.
      * @param userName the user's name
      * @param diningHall the dining hall name (or null)
      */
@@ -38,4 +40,19 @@ public interface InterfaceFriendPollingSystem {
      * @return a map of friends and their dining halls
      */
     Map<String, String> getFriendsAtDiningHalls(String userName);
+
+    /**
+     * Returns the friends of a user who are checked into one dining hall.
+     * @param userName the name of the user to check
+     * @param diningHall the dining hall name
+     * @return the friends at that hall (empty if the user or hall is unknown or null)
+     */
+    Set<String> getFriendsAt(String userName, String diningHall);
+
+    /**
+     * Counts a user's friends at every dining hall.
+     * @param userName the name of the user to check
+     * @return hall name -> number of friends there, for every hall
+     */
+    Map<String, Integer> getFriendCountsByHall(String userName);
 }
\ No newline at end of file
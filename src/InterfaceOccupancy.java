@@ -0,0 +1,42 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Interface defining how a dining hall tracks the diners currently inside it.
+ * DiningHall delegates all queueing to one of these engines, chosen at construction.
+ */
+public interface InterfaceOccupancy {
+
+    /**
+     * Records a diner entering at the given simulation time.
+     * @param user the user entering
+     * @param simTime the current simulation time
+     */
+    void enqueue(User user, long simTime);
+
+    /**
+     * Records a group of anonymous diners entering together.
+     * @param count the number of diners entering
+     * @param simTime the current simulation time
+     */
+    void enqueueBatch(int count, long simTime);
+
+    /**
+     * Removes diners whose meal time has expired.
+     * @param simTime the current simulation time
+     */
+    void dequeue(long simTime);
+
+    /**
+     * Returns the number of diners currently tracked (seated or waiting).
+     * @return the current occupancy
+     */
+    int size();
+
+    /**
+     * Estimates how long the next person to arrive would wait for a seat.
+     * @param simTime the current simulation time
+     * @param maxSize the hall's seating capacity
+     * @return wait time in milliseconds
+     */
+    long getWaitTime(long simTime, int maxSize);
+}
@@ -17,6 +17,14 @@ public interface InterfaceUser extends Comparable<InterfaceUser> {
      * @param rating the rating for the dish
      */
     void rate(String diningHall, String dish, int rating);
+
+    /**
+     * Removes the rating for a dish in a specific dining hall.
+     * @param diningHall the name of the dining hall
+     * @param dish the name of the dish
+     * @return true if a rating was removed, false if none existed
+     */
+    boolean removeRating(String diningHall, String dish);
     
     /**
      * Retrieves the rating for a specific dish in a dining hall.
@@ -24,6 +32,19 @@ public interface InterfaceUser extends Comparable<InterfaceUser> {
      * @param dish the name of the dish
      * @return the rating for the dish, or -1 if not found
      */
+    int getRating(String diningHall, String dish);
+
+    /**
+     * Retrieves all of this user's ratings at one dining hall.
+     * @param diningHall the name of the dining hall
+     * @return a map of dish to rating (empty if none)
+     */
+    HashMap<String, Integer> getHallRatings(String diningHall);
+
+    /**
+     * Retrieves all of this user's ratings, grouped by dining hall.
+     * @return a map of dining hall to (dish to rating)
+     */
     HashMap<String, HashMap<String, Integer>> getRatings();
     
     /**
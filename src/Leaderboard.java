@@ -0,0 +1,222 @@
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Live top-K leaderboard of dishes for one dining hall, ranked by the score of a
+ * ScoringStrategy (the average rating unless told otherwise).
+ * The RatingIndex pushes every change for the hall into update(), which adjusts
+ * the board incrementally and publishes a new immutable View. Readers only ever
+ * touch the current View, so they never block writers and never allocate.
+ */
+public class Leaderboard {
+    /** Orders dishes from highest to lowest average, breaking ties by name. */
+    public static final Comparator<DishStats> BY_AVERAGE = (a, b) -> {
+        int cmp = Double.compare(b.getAverage(), a.getAverage());
+        return cmp != 0 ? cmp : a.getDish().compareTo(b.getDish());
+    };
+
+    private final int capacity; // K, the number of dishes kept on the board
+    private volatile View view; // Current published board
+    private ScoringStrategy strategy = ScoringStrategy.MEAN;    // What the board ranks by
+    private double prior;       // Hall mean the current scores were computed with
+    private int rebuilds;       // Full rebuilds so far
+
+    /**
+     * Constructor initializes an empty leaderboard.
+     * @param capacity the number of top dishes to keep
+     */
+    public Leaderboard(int capacity) {
+        this.capacity = capacity;
+        this.view = new View(new int[0], new String[0], new double[0]);
+    }
+
+    /**
+     * Applies a change to one dish's totals. Must be called by a single writer
+     * at a time (the RatingIndex calls it while holding the hall's lock), after the
+     * hall's dish map has been updated.
+     * @param stats the changed dish's totals (count 0 means the dish is gone)
+     * @param allDishes every dish currently rated at the hall
+     */
+    public void update(DishStats stats, Collection<DishStats> allDishes) {
+        View cur = this.view;
+        int pos = cur.indexOf(stats.getDishId());
+        boolean present = stats.getCount() > 0;
+        double avg = present ? strategy.score(stats, prior) : 0;
+
+        if (pos >= 0) {
+            int kept = present ? cur.size() : cur.size() - 1;   // Board members still rated
+            boolean dropped = !present || avg < cur.getAverage(pos);
+            if (dropped && allDishes.size() > kept) {
+                rebuild(allDishes); // An outside dish might now belong on the board
+                return;
+            }
+            int[] ids = Arrays.copyOf(cur.dishIds, kept);
+            String[] dishes = Arrays.copyOf(cur.dishes, kept);
+            double[] averages = Arrays.copyOf(cur.averages, kept);
+            if (present) {
+                averages[pos] = avg;    // Update in place
+            } else {
+                System.arraycopy(cur.dishIds, pos + 1, ids, pos, kept - pos);   // Remove the dish
+                System.arraycopy(cur.dishes, pos + 1, dishes, pos, kept - pos);
+                System.arraycopy(cur.averages, pos + 1, averages, pos, kept - pos);
+            }
+            publish(ids, dishes, averages);
+        } else if (present) {
+            int size = cur.size();
+            if (size == capacity) {
+                if (compare(avg, stats.getDish(), cur.getAverage(size - 1), cur.getDish(size - 1)) >= 0) {
+                    return; // Not good enough to make the board
+                }
+                size--;     // Evict the last place dish
+            }
+            int[] ids = Arrays.copyOf(cur.dishIds, size + 1);
+            String[] dishes = Arrays.copyOf(cur.dishes, size + 1);
+            double[] averages = Arrays.copyOf(cur.averages, size + 1);
+            ids[size] = stats.getDishId();
+            dishes[size] = stats.getDish();
+            averages[size] = avg;
+            publish(ids, dishes, averages);
+        }
+    }
+
+    /**
+     * Rebuilds the board from scratch from every dish at the hall.
+     * @param allDishes every dish currently rated at the hall
+     */
+    public void rebuild(Collection<DishStats> allDishes) {
+        List<DishStats> top = select(allDishes, capacity, comparator(strategy, prior));
+        int[] ids = new int[top.size()];
+        String[] dishes = new String[top.size()];
+        double[] averages = new double[top.size()];
+        for (int i = 0; i < top.size(); i++) {
+            ids[i] = top.get(i).getDishId();
+            dishes[i] = top.get(i).getDish();
+            averages[i] = strategy.score(top.get(i), prior);
+        }
+        this.view = new View(ids, dishes, averages);  // Already sorted
+        this.rebuilds++;
+    }
+
+    /**
+     * Switches what the board ranks by. Call rebuild() afterwards.
+     * @param strategy the scoring strategy
+     * @param prior the mean of every rating at the hall
+     */
+    public void setStrategy(ScoringStrategy strategy, double prior) {
+        this.strategy = strategy;
+        this.prior = prior;
+    }
+
+    /**
+     * Orders dishes from highest to lowest score, breaking ties by name.
+     * @param strategy the scoring strategy
+     * @param prior the mean of every rating at the hall
+     * @return the comparator
+     */
+    public static Comparator<DishStats> comparator(ScoringStrategy strategy, double prior) {
+        if (strategy == ScoringStrategy.MEAN) return BY_AVERAGE;
+        return (a, b) -> compare(strategy.score(a, prior), a.getDish(), strategy.score(b, prior), b.getDish());
+    }
+
+    /**
+     * Selects the top N dishes with a bounded min-heap in O(dishes log N).
+     * @param allDishes the dishes to choose from
+     * @param topN the number of dishes to select
+     * @return the selected dishes, sorted from best to worst
+     */
+    public static List<DishStats> select(Collection<DishStats> allDishes, int topN) {
+        return select(allDishes, topN, BY_AVERAGE);
+    }
+
+    /**
+     * Selects the top N dishes in a given order with a bounded min-heap.
+     * @param allDishes the dishes to choose from
+     * @param topN the number of dishes to select
+     * @param order best first
+     * @return the selected dishes, sorted from best to worst
+     */
+    public static List<DishStats> select(Collection<DishStats> allDishes, int topN, Comparator<DishStats> order) {
+        if (topN <= 0) return new ArrayList<>();
+        PriorityQueue<DishStats> heap = new PriorityQueue<>(topN + 1, order.reversed()); // Worst on top
+        for (DishStats stats : allDishes) {
+            heap.add(stats);
+            if (heap.size() > topN) heap.poll();    // Evict the weakest
+        }
+
+        List<DishStats> result = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            result.add(heap.poll());
+        }
+        Collections.reverse(result);    // Best to worst
+        return result;
+    }
+
+    /**
+     * Sorts the working arrays (insertion sort, K is small) and publishes them.
+     */
+    private void publish(int[] ids, String[] dishes, double[] averages) {
+        for (int i = 1; i < dishes.length; i++) {
+            int id = ids[i];
+            String dish = dishes[i];
+            double avg = averages[i];
+            int j = i - 1;
+            while (j >= 0 && compare(avg, dish, averages[j], dishes[j]) < 0) {
+                ids[j + 1] = ids[j];
+                dishes[j + 1] = dishes[j];
+                averages[j + 1] = averages[j];
+                j--;
+            }
+            ids[j + 1] = id;
+            dishes[j + 1] = dish;
+            averages[j + 1] = avg;
+        }
+        this.view = new View(ids, dishes, averages);
+    }
+
+    /**
+     * Same ordering as BY_AVERAGE, on raw scores.
+     */
+    private static int compare(double avgA, String dishA, double avgB, String dishB) {
+        int cmp = Double.compare(avgB, avgA);
+        return cmp != 0 ? cmp : dishA.compareTo(dishB);
+    }
+
+    public View getView() { return this.view; } // Get the current board (never blocks, never allocates)
+    public int getCapacity() { return this.capacity; }  // Get K
+    public ScoringStrategy getStrategy() { return this.strategy; }  // Get what the board ranks by
+    public double getPrior() { return this.prior; }    // Get the hall mean the scores use
+    public int getRebuilds() { return this.rebuilds; }     // Get the number of full rebuilds
+
+    /**
+     * Immutable snapshot of a leaderboard, sorted from best to worst.
+     */
+    public static final class View {
+        private final int[] dishIds;
+        private final String[] dishes;
+        private final double[] averages;
+
+        private View(int[] dishIds, String[] dishes, double[] averages) {
+            this.dishIds = dishIds;
+            this.dishes = dishes;
+            this.averages = averages;
+        }
+
+        /**
+         * Finds a dish on the board.
+         * @param dishId the dish's SymbolTable.DISHES ID
+         * @return its rank (0 is best), or -1 if it is not on the board
+         */
+        public int indexOf(int dishId) {
+            for (int i = 0; i < dishIds.length; i++) {
+                if (dishIds[i] == dishId) return i;
+            }
+            return -1;
+        }
+
+        public int size() { return this.dishes.length; }   // Number of dishes on the board
+        public int getDishId(int rank) { return this.dishIds[rank]; }   // Dish ID at a rank
+        public String getDish(int rank) { return this.dishes[rank]; }   // Dish at a rank
+        public double getAverage(int rank) { return this.averages[rank]; }  // Score at a rank (the average by default)
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Ranks by the raw average rating (the original behavior). A dish with a single
+ * 5-star rating beats one with 200 ratings averaging 4.8.
+ */
+public class MeanScoring implements ScoringStrategy {
+    public double score(DishStats stats, double prior) {
+        return stats.getAverage();
+    }
+
+    public String getName() { return "Average Rating"; }
+}
@@ -0,0 +1,26 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * The occupancy engines a DiningHall can be constructed with.
+ */
+public enum OccupancyEngine {
+    QUEUE,  // One User object per diner in a priority queue
+    RING,   // Per-tick counters in a fixed ring, no per-diner objects
+    CONCURRENT; // Striped per-tick counters, safe for many check-in threads
+
+    /**
+     * Creates a new engine of this kind.
+     * @param mealLength the time a user spends in the hall (in ms)
+     * @return a new, empty occupancy engine
+     */
+    public InterfaceOccupancy create(long mealLength) {
+        switch (this) {
+            case RING:
+                return new RingOccupancy(mealLength);
+            case CONCURRENT:
+                return new ConcurrentRingOccupancy(mealLength);
+            default:
+                return new QueueOccupancy(mealLength);
+        }
+    }
+}
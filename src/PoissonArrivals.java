@@ -0,0 +1,49 @@
+import java.util.random.RandomGenerator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Arrivals as a Poisson process: each tick draws a Poisson count with a fixed mean.
+ */
+public class PoissonArrivals implements ArrivalModel {
+    private static final double CHUNK = 30;    // Largest mean drawn in one go (keeps exp(-mean) well away from 0)
+
+    private final double meanPerTick;
+
+    /**
+     * Constructor sets the average arrivals per tick.
+     * @param meanPerTick the expected number of diners per tick
+     */
+    public PoissonArrivals(double meanPerTick) {
+        if (!(meanPerTick >= 0)) throw new IllegalArgumentException("meanPerTick must not be negative");
+        this.meanPerTick = meanPerTick;
+    }
+
+    public int arrivals(long simTime, RandomGenerator random) {
+        return sample(this.meanPerTick, random);
+    }
+
+    /**
+     * Draws a Poisson count by multiplying uniforms (Knuth). Large means are split
+     * into chunks, since a sum of Poissons is Poisson with the summed mean.
+     * @param mean the expected count
+     * @param random the random generator to draw from
+     * @return the count
+     */
+    public static int sample(double mean, RandomGenerator random) {
+        int total = 0;
+        while (mean > 0) {
+            double part = Math.min(mean, CHUNK);
+            double limit = Math.exp(-part);
+            double p = random.nextDouble();
+            while (p > limit) {
+                p *= random.nextDouble();
+                total++;
+            }
+            mean -= part;
+        }
+        return total;
+    }
+
+    public double getMeanPerTick() { return this.meanPerTick; }    // Expected diners per tick
+}
@@ -1,6 +1,7 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -10,6 +11,7 @@ import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 
 /** 
@@ -20,10 +22,17 @@ import java.util.concurrent.TimeUnit;
  */
 public class Program {
     private HashMap<Integer, User> users = new HashMap<>();
+    private RatingIndex ratingIndex = new RatingIndex();   // Per-hall, per-dish rating totals
+    private RatingLog ratingLog = null; // Write-ahead log of rating changes (null if unavailable)
     private List<DiningHall> diningHalls;
     private HashMap<DiningHall, Long> openingTimes = new HashMap<>();
     private HashMap<DiningHall, Long> closingTimes = new HashMap<>();
     private FriendPollingSystem friendSystem = new FriendPollingSystem();
+    private HallSampler hallSampler;    // Draws open halls by popularity for arrivals
+    private BestDishQuery bestDish;     // Best dish across halls, counting wait and crowding
+    private BestDishQuery bestRated;    // Best dish across halls by rating alone, while no simulation runs
+    private volatile long simTime = -1; // Current simulation time (in ms), or -1 if no simulation is running
+    private ArrivalModel arrivalModel = new ConstantArrivals(20);  // Diners arriving each tick
     public User currentUser = null; // The user currently logged in
     public String currentUserName = null;   // The name of the current user
 
@@ -33,31 +42,65 @@ public class Program {
      */
     public Program() {
         this.users = new HashMap<>();
-        this.diningHalls = List.of(
-            new DiningHall("Hoch", 500, 2_700_000, 4),
-            new DiningHall("McConnel", 500, 2_700_000, 4),
-            new DiningHall("Collins", 400, 2_400_000, 3),
-            new DiningHall("Malott", 300, 3_000_000, 5),
-            new DiningHall("Frank", 400, 2_400_000, 2),
-            new DiningHall("Frary", 400, 2_400_000, 3),
-            new DiningHall("Oldenborg", 100, 1_800_000, 1)
+        this.diningHalls = createDiningHalls(ratingIndex, OccupancyEngine.RING);
+        this.openingTimes.putAll(openingTimes(diningHalls));
+        this.closingTimes.putAll(closingTimes(diningHalls));
+        this.hallSampler = new HallSampler(diningHalls);
+        this.bestDish = new BestDishQuery(diningHalls);
+        this.bestRated = new BestDishQuery(diningHalls, 0, 0);
+        this.friendSystem.setPresenceTtls(diningHalls);   // Check-ins last one meal
+    }
+
+    /**
+     * Builds a fresh set of the campus dining halls.
+     * @param ratingIndex the shared rating index, or null if ratings are not needed
+     * @param engine the occupancy engine each hall should use
+     * @return the dining halls, in dashboard order
+     */
+    public static List<DiningHall> createDiningHalls(RatingIndex ratingIndex, OccupancyEngine engine) {
+        return List.of(
+            new DiningHall("Hoch", 500, 2_700_000, 4, ratingIndex, engine),
+            new DiningHall("McConnel", 500, 2_700_000, 4, ratingIndex, engine),
+            new DiningHall("Collins", 400, 2_400_000, 3, ratingIndex, engine),
+            new DiningHall("Malott", 300, 3_000_000, 5, ratingIndex, engine),
+            new DiningHall("Frank", 400, 2_400_000, 2, ratingIndex, engine),
+            new DiningHall("Frary", 400, 2_400_000, 3, ratingIndex, engine),
+            new DiningHall("Oldenborg", 100, 1_800_000, 1, ratingIndex, engine)
         );
+    }
 
-        openingTimes.put(diningHalls.get(0), 30000L);   // Set opening time for dining halls
-        openingTimes.put(diningHalls.get(1), 15000L);
-        openingTimes.put(diningHalls.get(2), 15000L);
-        openingTimes.put(diningHalls.get(3), 15000L);
-        openingTimes.put(diningHalls.get(4), 15000L);
-        openingTimes.put(diningHalls.get(5), 15000L);
-        openingTimes.put(diningHalls.get(6), 15000L);
-
-        closingTimes.put(diningHalls.get(0), 8_100_000L);   // Set closing time for dining halls
-        closingTimes.put(diningHalls.get(2), 8_100_000L);
-        closingTimes.put(diningHalls.get(1), 9_900_000L);
-        closingTimes.put(diningHalls.get(3), 11_700_000L);
-        closingTimes.put(diningHalls.get(4), 11_700_000L);
-        closingTimes.put(diningHalls.get(5), 11_700_000L);
-        closingTimes.put(diningHalls.get(6), 11_700_000L);
+    /**
+     * Returns when each hall starts accepting diners.
+     * @param halls the halls from createDiningHalls
+     * @return a map of hall to opening time
+     */
+    public static Map<DiningHall, Long> openingTimes(List<DiningHall> halls) {
+        Map<DiningHall, Long> openingTimes = new HashMap<>();
+        openingTimes.put(halls.get(0), 30000L);   // Set opening time for dining halls
+        openingTimes.put(halls.get(1), 15000L);
+        openingTimes.put(halls.get(2), 15000L);
+        openingTimes.put(halls.get(3), 15000L);
+        openingTimes.put(halls.get(4), 15000L);
+        openingTimes.put(halls.get(5), 15000L);
+        openingTimes.put(halls.get(6), 15000L);
+        return openingTimes;
+    }
+
+    /**
+     * Returns when each hall stops accepting diners.
+     * @param halls the halls from createDiningHalls
+     * @return a map of hall to closing time
+     */
+    public static Map<DiningHall, Long> closingTimes(List<DiningHall> halls) {
+        Map<DiningHall, Long> closingTimes = new HashMap<>();
+        closingTimes.put(halls.get(0), 8_100_000L);   // Set closing time for dining halls
+        closingTimes.put(halls.get(2), 8_100_000L);
+        closingTimes.put(halls.get(1), 9_900_000L);
+        closingTimes.put(halls.get(3), 11_700_000L);
+        closingTimes.put(halls.get(4), 11_700_000L);
+        closingTimes.put(halls.get(5), 11_700_000L);
+        closingTimes.put(halls.get(6), 11_700_000L);
+        return closingTimes;
     }
 
     /**
@@ -106,43 +149,27 @@ public class Program {
     }
 
     /**
-     * Prints the status of all dining halls in a formatted table.
+     * Converts a 12-hour clock time back to elapsed milliseconds, the inverse of
+     * convertTo12hrClock. Times before 10:45 AM are taken to be the next day.
      * 
-     * @param halls The list of dining halls to display.
-     * @param currentTime The current time in 12-hour format.
-     * @param simTime The current simulation time in milliseconds.
+     * @param clock A time like "12:05 PM".
+     * @return The elapsed time in milliseconds since 10:45 AM.
+     * @throws IllegalArgumentException If the time is not in "hh:mm AM/PM" form.
      */
-    public static void printStatus(List<DiningHall> halls, String currentTime, long simTime) {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("\033[H\033[2J"); // Clear the console
-        sb.append("Dining Hall Dashboard\n");
-        sb.append("----------------------\n");
-        sb.append("Current Time: ").append(currentTime).append("\n\n");
-
-        sb.append(String.format("%-12s | %-10s | %-11s | %s\n", "Hall", "Status", "Diners", "Wait Time"));
-        sb.append("-------------|------------|-------------|-----------------\n");
-
-        for (DiningHall dh : halls) {
-            String status = dh.getStatus();
-            if (!status.equals("closed")) {
-                status = dh.updateStatus("open");   // Update status if not closed
-            }
-
-            long wait = status.equals("closed") ? 0 : dh.getWaitTime(simTime);  // Get wait time
-            String formattedWait = formatMillis(wait);  // Format wait time
-
-            String line = String.format("%-12s | %-10s | %4d/%-5d  | %s\n",
-                    dh.getName(),
-                    status,
-                    dh.getQueue().size(),
-                    dh.getMaxSize(),
-                    formattedWait);
-
-            sb.append(line);    // Append formatted line to StringBuilder
+    public static long parse12hrClock(String clock) {
+        String[] parts = clock.trim().toUpperCase().split("[: ]+");
+        if (parts.length != 3 || !(parts[2].equals("AM") || parts[2].equals("PM"))) {
+            throw new IllegalArgumentException("Invalid clock time: " + clock);
+        }
+        int hour12 = Integer.parseInt(parts[0]);
+        int minute = Integer.parseInt(parts[1]);
+        if (hour12 < 1 || hour12 > 12 || minute < 0 || minute > 59) {
+            throw new IllegalArgumentException("Invalid clock time: " + clock);
         }
 
-        System.out.print(sb);   // Print the status
+        int hour24 = hour12 % 12 + (parts[2].equals("PM") ? 12 : 0);   // Convert to 24-hour format
+        int elapsedMinutes = Math.floorMod(hour24 * 60 + minute - 645, 24 * 60);   // Start time is 10:45 AM
+        return elapsedMinutes * 60000L;
     }
 
     /**
@@ -186,14 +213,17 @@ public class Program {
             System.out.println("5. Set your current dining hall");
             System.out.println("6. Add a friend");
             System.out.println("7. Check where your friends are");
-            System.out.println("8. Exit and start dining hall simulation");
+            System.out.println("8. View rating statistics");
+            System.out.println("9. Exit and start dining hall simulation");
 
             System.out.print("Enter choice: ");
             String choice = scanner.nextLine().trim();
 
             switch (choice) {
                 case "1":
-                    System.out.println("\n=== Top Dishes by Dining Hall (Average Rating) ===");
+                    ScoringStrategy scoring = this.ratingIndex.getScoringStrategy();
+                    String label = scoring == ScoringStrategy.MEAN ? "Avg" : "Score";
+                    System.out.println("\n=== Top Dishes by Dining Hall (" + scoring.getName() + ") ===");
                     for (DiningHall dh : this.diningHalls) { // For each dining hall
                         System.out.println("\n" + dh.getName() + ":");
                         List<Map.Entry<String, Double>> topDishes = dh.topDishes(3, this.users); // Get top 3 dishes
@@ -201,10 +231,24 @@ public class Program {
                             System.out.println("  No ratings yet.");
                         } else {
                             for (Map.Entry<String, Double> entry : topDishes) {
-                                System.out.printf("  %-20s  Avg: %.2f\n", entry.getKey(), entry.getValue());
+                                System.out.printf("  %-20s  %s: %.2f\n", entry.getKey(), label, entry.getValue());
                             }
                         }
                     }
+                    List<BestDishQuery.Option> best;
+                    long now = this.simTime;
+                    if (now < 0) {  // No lines or crowds yet, and every hall opens once the simulation starts
+                        System.out.println("\nBest overall (no simulation running, by rating alone):");
+                        best = this.bestRated.best(5, 0, true);
+                    } else {
+                        System.out.println("\nBest overall (counting wait and crowding):");
+                        best = this.bestDish.best(5, now);
+                    }
+                    if (best.isEmpty()) System.out.println("  No ratings yet.");
+                    for (BestDishQuery.Option option : best) {
+                        System.out.printf("  %-20s  %-10s  %.2f (%s: %.2f, wait %s)\n", option.getDish(), option.getHall(),
+                            option.getScore(), label, option.getRating(), formatMillis(option.getWaitMillis()));
+                    }
                     break;
 
                 case "2":
@@ -230,19 +274,29 @@ public class Program {
                                 System.out.println("Dish name too short.");
                                 continue;
                             }
-
-                            boolean exists = false;
-                            for (User u : this.users.values()) {
-                                Map<String, HashMap<String, Integer>> r = u.getRatings();
-                                if (r.containsKey(hall.toLowerCase()) && r.get(hall.toLowerCase()).containsKey(dish)) {
-                                    exists = true;
-                                    break;
-                                }
+                            if (dish.indexOf(',') >= 0) {
+                                System.out.println("Dish name cannot contain commas.");  // Keeps the saved CSV simple
+                                continue;
                             }
 
+                            boolean exists = this.ratingIndex.contains(hall, dish);  // Check rating totals
+
                             if (!exists) {
-                                System.out.print("Dish not rated yet. Add anyway? (y/n): ");
-                                if (!scanner.nextLine().trim().equalsIgnoreCase("y")) {
+                                List<String> suggestions = this.ratingIndex.suggestDishes(hall, dish, 5);  // Typos, partial names
+                                if (suggestions.isEmpty()) {
+                                    System.out.print("Dish not rated yet. Add anyway? (y/n): ");
+                                } else {
+                                    System.out.println("Dish not rated yet. Did you mean:");
+                                    for (int i = 0; i < suggestions.size(); i++) {
+                                        System.out.println("  " + (i + 1) + ". " + suggestions.get(i));
+                                    }
+                                    System.out.print("Pick a number, or add \"" + dish + "\" anyway? (y/n): ");
+                                }
+                                String answer = scanner.nextLine().trim();
+                                int pick = answer.matches("\\d{1,2}") ? Integer.parseInt(answer) : 0;
+                                if (pick >= 1 && pick <= suggestions.size()) {
+                                    dish = suggestions.get(pick - 1);   // Rate the existing dish instead
+                                } else if (!answer.equalsIgnoreCase("y")) {
                                     continue;
                                 }
                             }
@@ -255,11 +309,13 @@ public class Program {
                         if (ratingInput.isEmpty()) break;
                         try {
                             int rating = Integer.parseInt(ratingInput); // Parse rating
-                            if (rating < 1 || rating > 5) {
+                            if (rating < 1 || rating > User.MAX_RATING) {
                                 System.out.println("Rating must be 1-5.");
                                 continue;
                             }
-                            this.currentUser.rate(hall, dish, rating); // Save rating
+                            long ratedAt = System.currentTimeMillis();
+                            this.currentUser.rate(hall, dish, rating, ratedAt); // Save rating
+                            logRating(hall, dish, rating, ratedAt);  // Make it survive a restart
                             this.friendSystem.setDiningHall(this.currentUserName, hall); // Update location
                             System.out.println("Rating saved.");
                         } catch (NumberFormatException e) {
@@ -292,8 +348,8 @@ public class Program {
                     String dishToDelete = scanner.nextLine().trim(); // Get dish to delete
                     if (dishToDelete.isEmpty()) break;
 
-                    if (allRatings.containsKey(hallToDelete)) {
-                        allRatings.get(hallToDelete).remove(dishToDelete); // Remove rating
+                    if (this.currentUser.removeRating(hallToDelete, dishToDelete)) { // Remove rating and update totals
+                        logRating(hallToDelete, dishToDelete, 0, 0);   // Make it survive a restart
                         System.out.println("Rating removed.");
                     } else {
                         System.out.println("No such rating found.");
@@ -303,13 +359,7 @@ public class Program {
                 case "4":
                     System.out.println("\n=== Available Dishes ===");
                     for (DiningHall dh : this.diningHalls) {
-                        Set<String> dishes = new HashSet<>();
-                        String hallKey = dh.getName().toLowerCase();
-                        for (User u : this.users.values()) {
-                            if (u.getRatings().containsKey(hallKey)) {
-                                dishes.addAll(u.getRatings().get(hallKey).keySet()); // Collect all dishes
-                            }
-                        }
+                        List<String> dishes = this.ratingIndex.getDishes(dh.getName()); // Collect all dishes
                         System.out.println(dh.getName() + ":");
                         if (dishes.isEmpty()) System.out.println("  No dishes rated yet.");
                         else dishes.forEach(d -> System.out.println("  - " + d));
@@ -355,29 +405,45 @@ public class Program {
                             System.out.println("- " + entry.getKey() + " is at " + entry.getValue());
                         }
                     }
+                    List<FriendPollingSystem.HallActivity> network = this.friendSystem.rankHallsByNetwork(this.currentUserName);
+                    if (!network.isEmpty()) {
+                        System.out.println("\nWhere your network is eating:");
+                        for (FriendPollingSystem.HallActivity activity : network) {    // Busiest first
+                            System.out.println("- " + activity.getHall() + ": " + activity.getFriends() + " friends, "
+                                + activity.getFriendsOfFriends() + " friends of friends");
+                        }
+                    }
                     break;
 
                 case "8":
+                    printRatingStats();
+                    break;
+
+                case "9":
                     System.out.println("Goodbye, " + this.currentUserName + "!");
                     return; // Exit the menu loop
 
                 default:
-                    System.out.println("Invalid input. Choose 1-8.");
+                    System.out.println("Invalid input. Choose 1-9.");
             }
         }
     }
 
     /**
      * Runs the dining hall simulation.
-     * Enqueues users, updates dining hall status, and prints the status every tick.
+     * Enqueues users, updates dining hall status, and hands a snapshot of every hall to
+     * the dashboard renderer each tick. Drawing happens on the renderer's own thread, so
+     * a slow terminal never delays a tick.
      */
     public void runSimulation() {
         long[] simulatedTime = {0};
-        int[] userCounter = {0};
+        DashboardRenderer renderer = new DashboardRenderer(System.out, DashboardRenderer.DEFAULT_FPS);
+        int[] cohort = new int[diningHalls.size()];    // Diners per hall this tick
         Set<DiningHall> started = new HashSet<>();
 
         ScheduledExecutorService enqueuer = Executors.newSingleThreadScheduledExecutor();
         enqueuer.scheduleAtFixedRate(() -> {
+            simTime = simulatedTime[0];     // Published for the best-dish menu
             for (DiningHall dh : diningHalls) {
                 long openAt = openingTimes.getOrDefault(dh, Long.MAX_VALUE);
                 long closeAt = closingTimes.getOrDefault(dh, Long.MAX_VALUE);
@@ -395,56 +461,246 @@ public class Program {
                 }
             }
 
-            for (int i = 0; i < 20; i++) {  // Enqueue 20 new users per tick
-                DiningHall hall = getPopularDiningHall();
-                int tries = 10;
-                while (hall.getStatus().equals("closed") && tries-- > 0) {  // Retry if closed
-                    hall = getPopularDiningHall();
-                }
-                if (!hall.getStatus().equals("closed")) {   // Only enqueue if hall is open
-                    hall.enqueue(new User(userCounter[0]++), simulatedTime[0]);
-                }
+            int arriving = arrivalModel.arrivals(simulatedTime[0], ThreadLocalRandom.current());
+            hallSampler.update(simulatedTime[0]);   // Rebuilds only if a hall opened or closed
+            hallSampler.distribute(arriving, ThreadLocalRandom.current(), cohort);  // Closed halls are never drawn
+            for (int i = 0; i < cohort.length; i++) {
+                if (cohort[i] > 0) diningHalls.get(i).enqueueBatch(cohort[i], simulatedTime[0]);  // Admit as one group
             }
 
             if (simulatedTime[0] >= 15_300_000L) { // Stop simulation at 3:00 PM
+                renderer.close();   // Finish drawing the last frame first
                 System.out.println("\nSimulation ended at 3:00 PM.");
+                simTime = -1;
                 enqueuer.shutdown();
                 return;
             }
 
-            printStatus(diningHalls, convertTo12hrClock(simulatedTime[0]), simulatedTime[0]);   // Print status
+            renderer.submit(DashboardRenderer.capture(diningHalls, convertTo12hrClock(simulatedTime[0]), simulatedTime[0], bestDish));    // Never blocks
             simulatedTime[0] += 60000;  // Increment simulated time by 1 minute
 
         }, 0, 100, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Runs simulated days with the discrete-event engine instead of the live dashboard,
+     * and writes every hall's time series as CSV. Each day starts from fresh halls.
+     * @param days the number of days to simulate
+     * @param seed the seed for the first day (day i uses seed + i)
+     * @param arrivals how many diners arrive each tick
+     * @param out where to write the CSV
+     * @throws IOException if writing fails
+     */
+    public static void runHeadless(int days, long seed, ArrivalModel arrivals, Appendable out) throws IOException {
+        for (int day = 0; day < days; day++) {
+            List<DiningHall> halls = createDiningHalls(null, OccupancyEngine.RING);
+            SimulationEngine engine = new SimulationEngine(halls, openingTimes(halls), closingTimes(halls),
+                SimulationEngine.END_TIME, arrivals, seed + day);
+            engine.run();
+            engine.writeCsv(out, day, day == 0);
+        }
+    }
+
+    /**
+     * Runs a batch of simulated days in parallel and prints per-hall capacity figures,
+     * followed by a scaling benchmark from one thread up to the requested count.
+     * @param scenarios the number of days to simulate
+     * @param seed the seed for the first day (day i uses seed + i)
+     * @param threads the maximum number of worker threads
+     * @param arrivals how many diners arrive each tick
+     */
+    public static void runScenarios(int scenarios, long seed, int threads, ArrivalModel arrivals) {
+        ScenarioRunner runner = new ScenarioRunner(scenarios, seed, threads, arrivals);
+        List<ScenarioRunner.HallSummary> results = runner.run();
+
+        System.out.println(scenarios + " scenarios, seed " + seed + ", " + threads + " threads");
+        System.out.println(String.format("%-12s | %-8s | %-8s | %-8s | %-11s | %-10s | %s",
+            "Hall", "Wait p50", "Wait p90", "Wait p99", "Peak (avg)", "Peak (max)", "Full"));
+        System.out.println("-------------|----------|----------|----------|-------------|------------|----------------");
+        for (ScenarioRunner.HallSummary s : results) {
+            System.out.println(String.format("%-12s | %-8s | %-8s | %-8s | %11.1f | %10d | %.1f min (%.1f%%)",
+                s.getName(), formatMillis(s.getWaitP50()), formatMillis(s.getWaitP90()), formatMillis(s.getWaitP99()),
+                s.getMeanPeakDiners(), s.getMaxPeakDiners(), s.getMeanMinutesFull(), s.getFractionFull() * 100));
+        }
+
+        System.out.println("\nScaling (same seed, results identical at every thread count):");
+        double base = 0;
+        for (int t = 1; t <= threads; t = t < threads ? Math.min(threads, t * 2) : threads + 1) {
+            ScenarioRunner r = new ScenarioRunner(scenarios, seed, t, arrivals);
+            r.run();
+            if (t == 1) base = r.getScenariosPerSecond();
+            System.out.println(String.format("  %3d threads: %8.0f scenarios/sec (%.2fx)",
+                t, r.getScenariosPerSecond(), r.getScenariosPerSecond() / base));
+        }
+    }
+
+    /**
+     * Prints how every dining hall's ratings are spread across the stars, the average of
+     * the most-rated dishes, and how many users have rated anything. Copies all ratings
+     * into a RatingTable once and answers every aggregate from its columns.
+     */
+    private void printRatingStats() {
+        RatingTable table = new RatingTable(this.users.values());
+        System.out.println("\n=== Rating Statistics ===");
+        if (table.size() == 0) {
+            System.out.println("No ratings yet.");
+            return;
+        }
+
+        System.out.printf("%-12s", "Hall");
+        for (int stars = 1; stars <= User.MAX_RATING; stars++) System.out.printf(" %6s", stars + "*");
+        System.out.printf(" %6s%n", "Avg");
+        long[][] byHall = table.histogram(RatingTable.GroupBy.HALL, false);
+        double[] hallAverages = table.averages(RatingTable.GroupBy.HALL);
+        for (DiningHall dh : this.diningHalls) {
+            int hall = SymbolTable.HALLS.find(dh.getName());
+            if (hall < 0 || hall >= byHall.length || hallAverages[hall] == 0) continue;  // Hall with no ratings
+            System.out.printf("%-12s", dh.getName());
+            for (int stars = 1; stars <= User.MAX_RATING; stars++) System.out.printf(" %6d", byHall[hall][stars]);
+            System.out.printf(" %6.2f%n", hallAverages[hall]);
+        }
+
+        long[][] byDish = table.histogram(RatingTable.GroupBy.DISH, false);
+        double[] dishAverages = table.averages(RatingTable.GroupBy.DISH);
+        long[] dishCounts = new long[byDish.length];
+        for (int dish = 0; dish < byDish.length; dish++) {
+            for (int stars = 1; stars <= User.MAX_RATING; stars++) dishCounts[dish] += byDish[dish][stars];
+        }
+        List<Integer> dishes = new ArrayList<>();
+        for (int dish = 0; dish < byDish.length; dish++) {
+            if (dishCounts[dish] > 0) dishes.add(dish);
+        }
+        dishes.sort((a, b) -> Long.compare(dishCounts[b], dishCounts[a]));    // Most-rated first
+        System.out.println("\nMost-rated dishes:");
+        for (int dish : dishes.subList(0, Math.min(10, dishes.size()))) {
+            System.out.printf("  %-32s  Avg: %.2f (%d ratings)\n", SymbolTable.DISHES.name(dish), dishAverages[dish], dishCounts[dish]);
+        }
+
+        int[] perUser = table.countByUser()[1];
+        int most = 0;
+        for (int count : perUser) most = Math.max(most, count);
+        System.out.printf("\n%d ratings from %d users (at most %d from one user)\n", table.size(), perUser.length, most);
+    }
+
+    /**
+     * Appends a rating change by the current user to the write-ahead log.
+     * @param hall the dining hall
+     * @param dish the dish
+     * @param rating the new rating, or 0 if the rating was removed
+     * @param time when the rating was made (in ms, ignored for removals)
+     */
+    private void logRating(String hall, String dish, int rating, long time) {
+        if (this.ratingLog == null) return;
+        try {
+            if (rating > 0) this.ratingLog.logRating(this.currentUser.getUserID(), hall, dish, rating, time);
+            else this.ratingLog.logDelete(this.currentUser.getUserID(), hall, dish);
+        } catch (IOException e) {
+            System.out.println("Rating not saved to disk: " + e.getMessage());
+        }
+    }
+
     /**
      * Main method to run the program.
      * Loads ratings from a CSV file and starts the user interface.
+     * With --headless [days] [seed] [arrivals] or --scenarios [count] [seed] [threads] [arrivals],
+     * runs the simulation without the interface instead (see ArrivalModel.parse for arrivals).
+     * With --scoring <spec>, ranks top dishes by another strategy (see ScoringStrategy.parse).
      * 
-     * @param args Command line arguments (not used).
+     * @param args Command line arguments (optional headless mode).
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            try {
+                int days = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+                long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+                ArrivalModel arrivals = ArrivalModel.parse(args.length > 3 ? args[3] : "constant:20");
+                long start = System.nanoTime();
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+                runHeadless(days, seed, arrivals, out);
+                out.flush();
+                System.err.println("Simulated " + days + " days in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (IllegalArgumentException e) {   // Includes NumberFormatException
+                System.out.println("Usage: java Program --headless [days] [seed] [arrivals]");
+            } catch (IOException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--scenarios")) {
+            try {
+                int scenarios = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+                long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+                int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+                ArrivalModel arrivals = ArrivalModel.parse(args.length > 4 ? args[4] : "constant:20");
+                runScenarios(scenarios, seed, threads, arrivals);
+            } catch (IllegalArgumentException e) {   // Includes NumberFormatException
+                System.out.println("Usage: java Program --scenarios [count] [seed] [threads] [arrivals]");
+            } catch (IOException e) {
+                System.out.println("Error reading arrivals: " + e.getMessage());
+            }
+            return;
+        }
+
+        ScoringStrategy scoring = ScoringStrategy.MEAN;
+        if (args.length > 0 && args[0].equals("--scoring")) {
+            try {
+                scoring = ScoringStrategy.parse(args.length > 1 ? args[1] : "");
+            } catch (IllegalArgumentException e) {
+                System.out.println("Usage: java Program --scoring mean|bayes[:weight]|wilson[:z]|decayed");
+                return;
+            }
+        }
+
         Program program = new Program();
 
         String filePath = "id_dish_rating_diningHall.csv";
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                int userID = Integer.parseInt(parts[0]);    // Parse user ID
-                String dish = parts[1].trim();  // Get dish name
-                int rating = Integer.parseInt(parts[2].trim()); // Parse rating
-                String diningHall = parts[3].trim().toLowerCase();  // Get dining hall name
-
-                program.users.putIfAbsent(userID, new User(userID));    // Create user if not exists
-                program.users.get(userID).rate(diningHall, dish, rating);   // Save rating
+        try {
+            if (RatingLog.discardStaleBase(filePath)) {
+                System.out.println("Ratings CSV changed since the last compaction; loading it instead of the old base and log");
+            }
+        } catch (IOException e) {
+            System.out.println("Error discarding old rating base: " + e.getMessage());
+        }
+        String basePath = RatingLog.basePath(filePath);     // Compacted base, if the log has been folded before
+        RatingSnapshot snapshot = new RatingSnapshot(basePath);
+        long loadStart = System.nanoTime();
+        if (snapshot.load(program.users, program.ratingIndex)) {   // Skip parsing if the CSV is unchanged
+            System.out.println("Loaded " + snapshot.getRows() + " ratings from snapshot in "
+                + (System.nanoTime() - loadStart) / 1_000_000 + " ms");
+        } else {
+            try {
+                RatingLoader loader = new RatingLoader(basePath);
+                loader.load(program.users, program.ratingIndex);    // Parse the CSV in parallel
+                System.out.println("Loaded " + loader.getRows() + " ratings in " + loader.getElapsedMillis() + " ms ("
+                    + loader.getRowsPerSecond() + " rows/sec, " + loader.getMalformed() + " malformed rows skipped)");
+                snapshot.write(program.users);  // Faster start next time
+            } catch (IOException e) {
+                System.out.println("Error reading file: " + e.getMessage());
             }
+        }
+
+        try {
+            program.ratingLog = new RatingLog(filePath, RatingLog.FsyncPolicy.INTERVAL);
+            long replayed = program.ratingLog.replay(program.users, program.ratingIndex);  // Changes since the base
+            if (replayed > 0) System.out.println("Replayed " + replayed + " logged rating changes");
+            if (program.ratingLog.size() > RatingLog.COMPACT_BYTES) {
+                program.ratingLog.compact(program.users);   // Fold the log into a new base file
+            }
+            RatingLog log = program.ratingLog;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    log.close();    // Write out anything still queued
+                } catch (IOException e) {
+                    System.out.println("Error closing rating log: " + e.getMessage());
+                }
+            }));
         } catch (IOException e) {
-            System.out.println("Error reading file: " + e.getMessage());
+            System.out.println("Rating log unavailable, changes will not be saved: " + e.getMessage());
+            program.ratingLog = null;
         }
 
+        program.ratingIndex.setScoringStrategy(scoring);    // Rebuilds the boards from the loaded totals
+
         Scanner scanner = new Scanner(System.in);
         System.out.print("Welcome! Please enter your name to start: ");
         String userName = scanner.nextLine().trim();
@@ -454,7 +710,7 @@ public class Program {
         }
 
         int newId = program.users.keySet().stream().max(Integer::compareTo).orElse(0) + 1;  // Generate new user ID
-        User currentUser = new User(newId); // Create new user
+        User currentUser = new User(newId, program.ratingIndex); // Create new user
         program.users.put(newId, currentUser);  // Add user to the system
         program.currentUser = currentUser;  // Set current user
         program.currentUserName = userName; // Set current user name
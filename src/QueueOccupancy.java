@@ -0,0 +1,110 @@
+import java.util.PriorityQueue;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Occupancy engine that keeps every diner as a User in a priority queue ordered by entry time.
+ * This is the original DiningHall behavior. Alongside the queue it keeps every diner's
+ * departure time in a sorted circular array, so the k-th departure is an indexed lookup.
+ */
+public class QueueOccupancy implements InterfaceOccupancy {
+    private final long mealLength;  // how long a user stays in the hall (in ms)
+    private final PriorityQueue<User> queue;
+    private long[] departures;  // Departure times in sorted order, circular from head
+    private int head;           // Index of the soonest departure
+
+    /**
+     * Constructor initializes an empty queue.
+     * @param mealLength the time a user spends in the hall (in ms)
+     */
+    public QueueOccupancy(long mealLength) {
+        this.mealLength = mealLength;
+        this.queue = new PriorityQueue<>(); // Users are stored in a time-priority queue by entry time
+        this.departures = new long[16];
+        this.head = 0;
+    }
+
+    /**
+     * Enqueues a user and sets their entry time.
+     * @param user the user entering the dining hall
+     * @param simTime the current simulation time
+     */
+    public void enqueue(User user, long simTime) {
+        user.setEntryTime(simTime); // Mark when they entered
+        addDeparture(simTime + this.mealLength);
+        queue.add(user);    // Add to the queue
+    }
+
+    /**
+     * Enqueues a group of anonymous diners. This engine keeps one User per diner,
+     * so each one is still allocated; use RING or CONCURRENT to avoid that.
+     * @param count the number of diners entering
+     * @param simTime the current simulation time
+     */
+    public void enqueueBatch(int count, long simTime) {
+        for (int i = 0; i < count; i++) {
+            enqueue(new User(-1), simTime);    // -1 marks an anonymous diner
+        }
+    }
+
+    /**
+     * Inserts a departure time, keeping the array sorted.
+     * Arrivals in time order make this an O(1) append.
+     * @param departure the time the new diner will leave
+     */
+    private void addDeparture(long departure) {
+        int n = queue.size();
+        if (n == departures.length) {   // Grow, unrolling the circle from head
+            long[] grown = new long[n * 2];
+            for (int i = 0; i < n; i++) {
+                grown[i] = departures[(head + i) % n];
+            }
+            departures = grown;
+            head = 0;
+        }
+        int i = n;
+        while (i > 0 && departures[(head + i - 1) % departures.length] > departure) {  // Shift later departures back
+            departures[(head + i) % departures.length] = departures[(head + i - 1) % departures.length];
+            i--;
+        }
+        departures[(head + i) % departures.length] = departure;
+    }
+
+    /**
+     * Dequeues users who have finished their meal based on the current simulation time.
+     * @param simTime the current simulation time
+     */
+    public void dequeue(long simTime) {
+        while (!queue.isEmpty()) {   // Check each user in the queue
+            User user = queue.peek();   // Look at first in line
+            if (user.getEntryTime() + this.mealLength <= simTime) {
+                queue.poll();   // Remove if finished eating
+                head = (head + 1) % departures.length;  // Soonest departure goes with them
+            } else {
+                break;  // Stop checking once someone isn’t done
+            }
+        }
+    }
+
+    /**
+     * Estimates the wait time for a user based on the current queue and simulation time.
+     * The person at the front of the line gets a seat when the k-th seated diner leaves,
+     * where k is the number of people waiting; seats go to diners in entry order.
+     * @param simTime the current simulation time
+     * @param maxSize the hall's seating capacity
+     * @return estimated wait time in milliseconds
+     */
+    public long getWaitTime(long simTime, int maxSize) {
+        int size = queue.size();
+        int inHall = Math.min(size, maxSize);   // People currently seated
+        int waitingOutside = size - inHall;     // Overflow in line
+        if (waitingOutside <= 0) return 0;      // No overflow, no wait
+
+        int k = Math.min(waitingOutside, inHall) - 1;   // Departure the person just outside is waiting for
+        long leaveTime = departures[(head + k) % departures.length];
+        return Math.max(0, leaveTime - simTime);    // Estimate: when they get a seat
+    }
+
+    public int size() { return this.queue.size(); }    // Number of users in the queue
+    public PriorityQueue<User> getQueue() { return this.queue; }   // Access the user queue
+}
@@ -0,0 +1,364 @@
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Aggregate index of dish ratings, grouped by dining hall.
+ * Every rating change made through User is applied here as a delta, so
+ * top dish queries can be answered without walking every user's ratings.
+ * Each hall also gets a live Leaderboard that is updated with every delta.
+ *
+ * Halls and dishes are addressed by their SymbolTable IDs: each hall keeps an
+ * array of DishStats indexed by dish ID, and each hall has its own lock.
+ *
+ * Leaderboards rank by a pluggable ScoringStrategy. Scores come from each dish's
+ * running totals, so switching strategies only re-sorts them. Strategies that use the
+ * hall's mean rating as a prior get their boards rebuilt when that mean drifts.
+ *
+ * Dish listings and top-N results are kept in a small LRU cache. Each hall has two
+ * version counters, one bumped when a dish is first rated or loses its last rating and
+ * one bumped on every change. A cached result remembers the version it was built at,
+ * so a change at one hall invalidates only that hall's results.
+ *
+ * Each hall also keeps a DishSearchIndex of its rated dish names, kept in step as
+ * dishes gain their first rating or lose their last, for suggesting dishes by prefix
+ * or despite typos.
+ */
+public class RatingIndex {
+    public static final int LEADERBOARD_SIZE = 10;  // Dishes kept on each hall's live leaderboard
+    private static final double PRIOR_DRIFT = 0.01; // Hall mean change (in stars) that triggers a rebuild
+    public static final int RESULT_CACHE_SIZE = 256;    // Listings and top-N results kept
+    private static final int CATALOG = -1;  // Cache key slot for a hall's dish listing
+
+    private volatile HallRatings[] halls;   // Hall ID -> that hall's dish totals
+    private volatile boolean bulkLoading;   // Skip leaderboard upkeep until the load finishes
+    private volatile ScoringStrategy strategy = ScoringStrategy.MEAN;  // What leaderboards rank by
+    private final Map<Long, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedResult> eldest) {
+            return size() > RESULT_CACHE_SIZE;  // Least recently used result goes first
+        }
+    };
+    private final LongAdder cacheHits = new LongAdder();     // Results served from the cache
+    private final LongAdder cacheMisses = new LongAdder();   // Results computed
+
+    /**
+     * Constructor initializes an empty index.
+     */
+    public RatingIndex() {
+        this.halls = new HallRatings[8];
+    }
+
+    /**
+     * Applies a rating change for a dish.
+     * A rating of 0 means "no rating", so (0, r) is a new rating, (r, 0) is a
+     * delete, and (old, new) replaces an existing rating.
+     * @param hallId the dining hall's SymbolTable.HALLS ID
+     * @param dishId the dish's SymbolTable.DISHES ID
+     * @param oldRating the previous rating, or 0 if there was none
+     * @param oldDay the day the previous rating was made (see DishStats.add)
+     * @param newRating the new rating, or 0 if the rating was removed
+     * @param newDay the day the new rating was made
+     */
+    public void update(int hallId, int dishId, int oldRating, int oldDay, int newRating, int newDay) {
+        HallRatings hall = hall(hallId);
+        synchronized (hall) {
+            DishStats stats = hall.getOrCreate(dishId);
+            if (oldRating > 0) {    // Undo the old rating
+                stats.remove(oldRating, oldDay);
+                hall.sum -= oldRating;
+                hall.ratings--;
+            }
+            if (newRating > 0) {    // Apply the new rating
+                stats.add(newRating, newDay);
+                hall.sum += newRating;
+                hall.ratings++;
+            }
+            if (stats.getCount() == 0) {
+                hall.remove(dishId);    // Drop dishes nobody has rated anymore
+            }
+            hall.version++;     // Cached top-N results for this hall are stale
+            if (!bulkLoading) {
+                Leaderboard board = hall.leaderboard;
+                if (board.getStrategy().usesPrior() && Math.abs(hall.mean() - board.getPrior()) > PRIOR_DRIFT) {
+                    board.setStrategy(board.getStrategy(), hall.mean());
+                    board.rebuild(hall);    // Every score moved with the prior
+                } else {
+                    board.update(stats, hall);   // Keep the live board current
+                }
+            }
+        }
+    }
+
+    /**
+     * Turns bulk loading on or off. While on, updates only touch the running totals;
+     * turning it off rebuilds every hall's leaderboard once.
+     * @param bulkLoading true before a large load, false after it
+     */
+    public void setBulkLoading(boolean bulkLoading) {
+        this.bulkLoading = bulkLoading;
+        if (bulkLoading) return;
+        for (HallRatings hall : this.halls) {
+            if (hall == null) continue;
+            synchronized (hall) {
+                hall.leaderboard.setStrategy(strategy, hall.mean());
+                hall.leaderboard.rebuild(hall);
+            }
+        }
+    }
+
+    /**
+     * Switches what every leaderboard and topDishes ranks by. Each board is rebuilt
+     * from the dish totals it already has; no ratings are rescanned.
+     * @param strategy the scoring strategy
+     */
+    public void setScoringStrategy(ScoringStrategy strategy) {
+        this.strategy = strategy;
+        for (HallRatings hall : this.halls) {
+            if (hall == null) continue;
+            synchronized (hall) {
+                hall.leaderboard.setStrategy(strategy, hall.mean());
+                if (!bulkLoading) hall.leaderboard.rebuild(hall);
+                hall.version++;
+            }
+        }
+    }
+
+    public ScoringStrategy getScoringStrategy() { return this.strategy; }  // What leaderboards rank by
+
+    /**
+     * Returns the live leaderboard for a dining hall, creating an empty one if needed.
+     * @param hallId the dining hall's SymbolTable.HALLS ID
+     * @return the hall's leaderboard
+     */
+    public Leaderboard getLeaderboard(int hallId) {
+        return hall(hallId).leaderboard;
+    }
+
+    /**
+     * Checks whether a dish has at least one rating at a dining hall.
+     * @param hallName the name of the dining hall
+     * @param dish the name of the dish
+     * @return true if the dish has been rated at the hall
+     */
+    public boolean contains(String hallName, String dish) {
+        int hallId = SymbolTable.HALLS.find(hallName);
+        int dishId = SymbolTable.DISHES.find(dish);
+        if (hallId < 0 || dishId < 0) return false;    // Never seen by anyone
+        HallRatings hall = hall(hallId);
+        synchronized (hall) {
+            return hall.get(dishId) != null;
+        }
+    }
+
+    /**
+     * Returns the names of every dish with at least one rating at a dining hall.
+     * Served from the cache unless a dish was added to or dropped from the hall since.
+     * @param hallName the name of the dining hall
+     * @return an unmodifiable list of dish names
+     */
+    public List<String> getDishes(String hallName) {
+        int hallId = SymbolTable.HALLS.find(hallName);
+        if (hallId < 0) return Collections.emptyList();
+        HallRatings hall = hall(hallId);
+        long key = key(hallId, CATALOG);
+        synchronized (hall) {
+            CachedResult cached = cached(key, hall.catalogVersion);
+            if (cached != null) return cached.dishes;
+            List<String> result = new ArrayList<>(hall.size());
+            for (DishStats stats : hall) {
+                result.add(stats.getDish());
+            }
+            result = Collections.unmodifiableList(result);
+            store(key, new CachedResult(hall.catalogVersion, result, null));
+            return result;
+        }
+    }
+
+    /**
+     * Suggests dishes rated at a dining hall that match what the user typed: exact and
+     * prefix matches (of the name or any word in it) first, then close misspellings.
+     * Ties go to the more often rated dish.
+     * @param hallName the name of the dining hall
+     * @param text the (partial or misspelled) dish name
+     * @param limit the most suggestions to return
+     * @return dish names, best match first
+     */
+    public List<String> suggestDishes(String hallName, String text, int limit) {
+        List<String> result = new ArrayList<>();
+        int hallId = SymbolTable.HALLS.find(hallName);
+        if (hallId < 0) return result;
+        HallRatings hall = hall(hallId);
+        synchronized (hall) {
+            for (int dishId : hall.search.search(text, limit, id -> hall.get(id).getCount())) {
+                result.add(SymbolTable.DISHES.name(dishId));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the top N dishes at a dining hall by the current scoring strategy.
+     * Uses a bounded min-heap, so the cost is O(dishes log N), unless the same query
+     * was answered since the hall last changed.
+     * @param hallId the dining hall's SymbolTable.HALLS ID
+     * @param topN the number of top dishes to return
+     * @return an unmodifiable list of dish-score pairs sorted from highest to lowest score
+     */
+    public List<Map.Entry<String, Double>> topDishes(int hallId, int topN) {
+        HallRatings hall = hall(hallId);
+        long key = key(hallId, Math.max(topN, 0));
+        synchronized (hall) {
+            CachedResult cached = cached(key, hall.version);
+            if (cached != null) return cached.top;
+            ScoringStrategy scoring = this.strategy;
+            double prior = hall.mean();
+            List<Map.Entry<String, Double>> result = new ArrayList<>();
+            for (DishStats stats : Leaderboard.select(hall, topN, Leaderboard.comparator(scoring, prior))) {
+                result.add(new AbstractMap.SimpleImmutableEntry<>(stats.getDish(), scoring.score(stats, prior)));
+            }
+            result = Collections.unmodifiableList(result);
+            store(key, new CachedResult(hall.version, null, result));
+            return result;
+        }
+    }
+
+    /**
+     * Looks up a cached result, counting a hit or miss. Call with the hall's lock held.
+     * @return the result, or null if it is missing or was built at another version
+     */
+    private CachedResult cached(long key, long version) {
+        synchronized (results) {
+            CachedResult cached = results.get(key);
+            if (cached != null && cached.version == version) {
+                cacheHits.increment();
+                return cached;
+            }
+            cacheMisses.increment();
+            return null;
+        }
+    }
+
+    private void store(long key, CachedResult result) {
+        synchronized (results) {
+            results.put(key, result);
+        }
+    }
+
+    private static long key(int hallId, int slot) {
+        return ((long) hallId << 32) | (slot & 0xFFFFFFFFL);
+    }
+
+    public long getCacheHits() { return this.cacheHits.sum(); }    // Results served from the cache
+    public long getCacheMisses() { return this.cacheMisses.sum(); }    // Results computed
+
+    /**
+     * Returns a hall's totals, growing the table if this hall ID is new.
+     */
+    private HallRatings hall(int hallId) {
+        HallRatings[] table = this.halls;
+        if (hallId < table.length && table[hallId] != null) return table[hallId];  // Fast path, no lock
+
+        synchronized (this) {
+            table = this.halls;
+            if (hallId >= table.length) {
+                table = Arrays.copyOf(table, Math.max(hallId + 1, table.length * 2));
+            }
+            if (table[hallId] == null) {
+                table[hallId] = new HallRatings();
+                table[hallId].leaderboard.setStrategy(strategy, 0);
+            }
+            this.halls = table; // Publish
+            return table[hallId];
+        }
+    }
+
+    /**
+     * One hall's dish totals, indexed by dish ID. Iterating it visits every rated dish.
+     */
+    private static final class HallRatings extends AbstractCollection<DishStats> {
+        private final Leaderboard leaderboard = new Leaderboard(LEADERBOARD_SIZE);
+        private final DishSearchIndex search = new DishSearchIndex();  // Rated dish names, for suggestions
+        private DishStats[] dishes = new DishStats[16];  // Dish ID -> totals (null if unrated)
+        private int count;  // Number of non-null entries
+        private long sum;       // Sum of every rating at the hall
+        private long ratings;   // Number of ratings at the hall
+        private long version;           // Bumped on every change at the hall
+        private long catalogVersion;    // Bumped when the set of rated dishes changes
+
+        double mean() {
+            return ratings == 0 ? 0 : (double) sum / ratings;
+        }
+
+        DishStats get(int dishId) {
+            return dishId < dishes.length ? dishes[dishId] : null;
+        }
+
+        DishStats getOrCreate(int dishId) {
+            if (dishId >= dishes.length) {
+                dishes = Arrays.copyOf(dishes, Math.max(dishId + 1, dishes.length * 2));
+            }
+            if (dishes[dishId] == null) {
+                dishes[dishId] = new DishStats(dishId);
+                count++;
+                catalogVersion++;
+                search.add(dishId, dishes[dishId].getDish());
+            }
+            return dishes[dishId];
+        }
+
+        void remove(int dishId) {
+            if (get(dishId) != null) {
+                dishes[dishId] = null;
+                count--;
+                catalogVersion++;
+                search.remove(dishId);
+            }
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+
+        @Override
+        public Iterator<DishStats> iterator() {
+            return new Iterator<DishStats>() {
+                private int next = advance(0);
+
+                private int advance(int from) {
+                    while (from < dishes.length && dishes[from] == null) from++;    // Skip unrated dish IDs
+                    return from;
+                }
+
+                public boolean hasNext() {
+                    return next < dishes.length;
+                }
+
+                public DishStats next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    DishStats stats = dishes[next];
+                    next = advance(next + 1);
+                    return stats;
+                }
+            };
+        }
+    }
+
+    /**
+     * A cached dish listing or top-N result and the hall version it was built at.
+     */
+    private static final class CachedResult {
+        private final long version;
+        private final List<String> dishes;  // Set for listings
+        private final List<Map.Entry<String, Double>> top;  // Set for top-N results
+
+        CachedResult(long version, List<String> dishes, List<Map.Entry<String, Double>> top) {
+            this.version = version;
+            this.dishes = dishes;
+            this.top = top;
+        }
+    }
+}
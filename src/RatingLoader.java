@@ -0,0 +1,324 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Loads the id,dish,rating,dining_hall CSV in parallel.
+ * The file is memory-mapped and cut into line-aligned chunks, each chunk is parsed
+ * straight from the mapped bytes on the fork-join pool (IDs and ratings are read as
+ * digits, never as Strings), and the parsed columns are then merged in file order
+ * into the users map and rating index. Malformed rows are skipped and logged.
+ */
+public class RatingLoader {
+    private static final long CHUNK_SIZE = 16L << 20;   // Target bytes per parse task
+    private static final int MAX_LOGGED = 10;   // Malformed rows printed before going quiet
+
+    private final Path path;
+    private long rows;          // Ratings loaded
+    private long malformed;     // Rows skipped
+    private long elapsedNanos;  // Time spent in the last load
+
+    /**
+     * Constructor sets the file to load.
+     * @param filePath the path to the ratings CSV
+     */
+    public RatingLoader(String filePath) {
+        this.path = Path.of(filePath);
+    }
+
+    /**
+     * Loads every rating in the file into the given users, creating users as needed.
+     * The first line is treated as a header.
+     * @param users the map of user ID to user to fill
+     * @param ratingIndex the rating index new users should report to
+     * @throws IOException if the file cannot be read
+     */
+    public void load(Map<Integer, User> users, RatingIndex ratingIndex) throws IOException {
+        long start = System.nanoTime();
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long pos = 0;
+            while (pos < size) {    // Cut into chunks that end on a newline
+                long end = Math.min(size, pos + CHUNK_SIZE);
+                if (end < size) end = nextLine(channel, end, size);
+                chunks.add(new Chunk(channel.map(FileChannel.MapMode.READ_ONLY, pos, end - pos), pos == 0));
+                pos = end;
+            }
+        }
+
+        new ParseTask(chunks, 0, chunks.size()).invoke();   // Parse on the fork-join pool
+
+        if (ratingIndex != null) ratingIndex.setBulkLoading(true);  // Build leaderboards once at the end
+        try {
+            this.rows = 0;
+            this.malformed = 0;
+            long lineBase = 0;  // Line number where the current chunk starts
+            for (Chunk chunk : chunks) {    // Merge in file order so later rows win, as before
+                for (int i = 0; i < chunk.count; i++) {
+                    int userID = chunk.userIds[i];
+                    User user = users.get(userID);
+                    if (user == null) {
+                        user = new User(userID, ratingIndex);   // Create user if not exists
+                        users.put(userID, user);
+                    }
+                    user.rate(chunk.hallIds[i], chunk.dishIds[i], chunk.ratings[i], 0);     // Save rating (CSV rows have no time)
+                }
+                for (int i = 0; i < chunk.badLines.size() && malformed + i < MAX_LOGGED; i++) {
+                    System.out.println("Skipping malformed row at line " + (lineBase + chunk.badLines.get(i)));
+                }
+                this.rows += chunk.count;
+                this.malformed += chunk.badCount;
+                lineBase += chunk.lines;
+            }
+        } finally {
+            if (ratingIndex != null) ratingIndex.setBulkLoading(false);
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Finds the first byte after the next newline at or after a position.
+     */
+    private static long nextLine(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long pos = from;
+        while (pos < size) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n <= 0) break;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return pos + i + 1;
+            }
+            pos += n;
+        }
+        return size;
+    }
+
+    public long getRows() { return this.rows; }    // Ratings loaded by the last load
+    public long getMalformed() { return this.malformed; }  // Rows skipped by the last load
+    public long getElapsedMillis() { return this.elapsedNanos / 1_000_000; }    // Duration of the last load
+
+    /**
+     * Computes the load rate of the last load.
+     * @return rows loaded per second
+     */
+    public long getRowsPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.rows * 1_000_000_000L / this.elapsedNanos;
+    }
+
+    /**
+     * Splits the chunk list in half until each task has one chunk to parse.
+     */
+    private static final class ParseTask extends RecursiveTask<Void> {
+        private static final long serialVersionUID = 1L;
+        private final List<Chunk> chunks;
+        private final int from;
+        private final int to;
+
+        ParseTask(List<Chunk> chunks, int from, int to) {
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Void compute() {
+            if (to - from <= 1) {
+                if (from < to) chunks.get(from).parse();
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            ParseTask left = new ParseTask(chunks, from, mid);
+            left.fork();
+            new ParseTask(chunks, mid, to).compute();
+            left.join();
+            return null;
+        }
+    }
+
+    /**
+     * One line-aligned slice of the file and the columns parsed from it.
+     */
+    private static final class Chunk {
+        private final MappedByteBuffer buf;
+        private final boolean hasHeader;
+        private int[] userIds = new int[1024];
+        private int[] hallIds = new int[1024];
+        private int[] dishIds = new int[1024];
+        private byte[] ratings = new byte[1024];
+        private int count;      // Rows parsed
+        private int lines;      // Lines seen, for error line numbers
+        private int badCount;   // Rows skipped
+        private final List<Integer> badLines = new ArrayList<>();   // First few skipped line numbers (1-based)
+        private final NameCache halls = new NameCache(SymbolTable.HALLS);
+        private final NameCache dishes = new NameCache(SymbolTable.DISHES);
+
+        Chunk(MappedByteBuffer buf, boolean hasHeader) {
+            this.buf = buf;
+            this.hasHeader = hasHeader;
+        }
+
+        /**
+         * Parses every line as id,dish,rating,dining_hall. The dish may contain commas:
+         * the rating and hall are taken from the last two fields.
+         */
+        void parse() {
+            int limit = buf.limit();
+            int start = 0;
+            while (start < limit) {
+                int end = start;
+                while (end < limit && buf.get(end) != '\n') end++;
+                int lineEnd = end;
+                if (lineEnd > start && buf.get(lineEnd - 1) == '\r') lineEnd--;   // Allow CRLF files
+                lines++;
+                if (!(hasHeader && lines == 1) && lineEnd > start && !parseLine(start, lineEnd)) {
+                    badCount++;
+                    if (badLines.size() < MAX_LOGGED) badLines.add(lines);
+                }
+                start = end + 1;
+            }
+        }
+
+        /**
+         * Parses one line. Returns false if the line is malformed.
+         */
+        private boolean parseLine(int start, int end) {
+            int c1 = indexOf(start, end);   // After the user ID
+            int c3 = lastIndexOf(start, end);   // Before the dining hall
+            if (c1 < 0 || c3 <= c1) return false;
+            int c2 = lastIndexOf(c1 + 1, c3);   // Before the rating
+            if (c2 < 0) return false;
+
+            long userID = parseNumber(start, c1);
+            long rating = parseNumber(c2 + 1, c3);
+            if (userID < 0 || userID > Integer.MAX_VALUE || rating < 1 || rating > User.MAX_RATING) return false;
+            int dishId = dishes.lookup(buf, c1 + 1, c2);
+            int hallId = halls.lookup(buf, c3 + 1, end);
+            if (dishId < 0 || hallId < 0) return false;  // Blank name
+
+            if (count == userIds.length) {
+                int grown = count * 2;
+                userIds = Arrays.copyOf(userIds, grown);
+                hallIds = Arrays.copyOf(hallIds, grown);
+                dishIds = Arrays.copyOf(dishIds, grown);
+                ratings = Arrays.copyOf(ratings, grown);
+            }
+            userIds[count] = (int) userID;
+            hallIds[count] = hallId;
+            dishIds[count] = dishId;
+            ratings[count] = (byte) rating;
+            count++;
+            return true;
+        }
+
+        /**
+         * Reads a non-negative decimal number, allowing surrounding spaces.
+         * Returns -1 if the field is not a number.
+         */
+        private long parseNumber(int start, int end) {
+            while (start < end && buf.get(start) == ' ') start++;
+            while (end > start && buf.get(end - 1) == ' ') end--;
+            if (start == end || end - start > 18) return -1;
+            long value = 0;
+            for (int i = start; i < end; i++) {
+                int digit = buf.get(i) - '0';
+                if (digit < 0 || digit > 9) return -1;
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        private int indexOf(int start, int end) {
+            for (int i = start; i < end; i++) {
+                if (buf.get(i) == ',') return i;
+            }
+            return -1;
+        }
+
+        private int lastIndexOf(int start, int end) {
+            for (int i = end - 1; i >= start; i--) {
+                if (buf.get(i) == ',') return i;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Per-chunk cache from raw name bytes to symbol ID, so each distinct spelling
+     * is decoded into a String only once per chunk.
+     */
+    private static final class NameCache {
+        private final SymbolTable symbols;
+        private int[] hashes = new int[256];
+        private int[] ids = new int[256];
+        private byte[][] names = new byte[256][];
+        private int size;
+
+        NameCache(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
+
+        /**
+         * Returns the symbol ID for the bytes in [start, end), or -1 if the name is blank.
+         */
+        int lookup(MappedByteBuffer buf, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) hash = 31 * hash + buf.get(i);
+            int mask = hashes.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {   // Linear probing
+                byte[] name = names[slot];
+                if (name == null) break;
+                if (hashes[slot] == hash && matches(name, buf, start, end)) return ids[slot];
+            }
+
+            byte[] bytes = new byte[end - start];
+            buf.get(start, bytes);
+            String raw = new String(bytes, StandardCharsets.UTF_8);
+            if (raw.isBlank()) return -1;
+            int id = symbols.intern(raw);
+            if ((size + 1) * 2 > hashes.length) grow();
+            insert(hash, id, bytes);
+            return id;
+        }
+
+        private boolean matches(byte[] name, MappedByteBuffer buf, int start, int end) {
+            if (name.length != end - start) return false;
+            for (int i = 0; i < name.length; i++) {
+                if (name[i] != buf.get(start + i)) return false;
+            }
+            return true;
+        }
+
+        private void insert(int hash, int id, byte[] name) {
+            int mask = hashes.length - 1;
+            int slot = hash & mask;
+            while (names[slot] != null) slot = (slot + 1) & mask;
+            hashes[slot] = hash;
+            ids[slot] = id;
+            names[slot] = name;
+            size++;
+        }
+
+        private void grow() {
+            int[] oldHashes = hashes;
+            int[] oldIds = ids;
+            byte[][] oldNames = names;
+            hashes = new int[oldHashes.length * 2];
+            ids = new int[oldHashes.length * 2];
+            names = new byte[oldHashes.length * 2][];
+            size = 0;
+            for (int i = 0; i < oldNames.length; i++) {
+                if (oldNames[i] != null) insert(oldHashes[i], oldIds[i], oldNames[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,436 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Append-only write-ahead log of rating adds and deletes made while the program runs.
+ * Callers only encode a record and hand it to a background writer, so the menu never
+ * waits on disk. The writer drains everything queued since its last write and writes
+ * it in one go (group commit), then syncs according to the FsyncPolicy.
+ *
+ * On startup the log is replayed on top of the CSV or snapshot. Once it grows past
+ * COMPACT_BYTES it can be compacted: the current ratings are written out as a base
+ * file next to the CSV (plus its snapshot) and the log starts over empty. The source
+ * CSV itself is never rewritten; once a base exists it is loaded instead (see basePath).
+ * The base's header records the CSV's size and modification time, so if the CSV is
+ * edited or replaced later, the base and the log built on it are discarded and the
+ * CSV is loaded again (see discardStaleBase).
+ *
+ * Record layout: payload length, payload (type, user ID, rating, hall, dish, and for
+ * adds the time it was made), CRC32. Adds logged before times were recorded have no
+ * time and replay as made on day 0, like CSV rows.
+ * Replay stops at the first torn or corrupt record and cuts the file there.
+ */
+public class RatingLog implements Closeable {
+    public static final long COMPACT_BYTES = 8L << 20; // Log size that makes compaction worthwhile
+    public static final long DEFAULT_FSYNC_INTERVAL = 1000;    // ms between syncs under INTERVAL
+
+    private static final String BASE_SUFFIX = ".base";
+    private static final String BASE_HEADER = "id,dish,dish_rating,dining_hall,source=";  // Followed by the CSV's stamp
+
+    private static final byte ADD = 'A';
+    private static final byte DELETE = 'D';
+    private static final ByteBuffer STOP = ByteBuffer.allocate(0);  // Tells the writer to exit
+
+    /** How often the writer forces the log to disk. */
+    public enum FsyncPolicy {
+        ALWAYS,     // After every group commit
+        INTERVAL,   // At most once per fsync interval
+        NEVER       // Leave it to the OS (flush() and close() still sync)
+    }
+
+    private final String csvPath;
+    private final String sourceStamp;   // The CSV's size and mtime when the log was opened
+    private final Path path;
+    private final FileChannel channel;
+    private final FsyncPolicy policy;
+    private final long fsyncIntervalMillis;
+    private final LinkedBlockingQueue<ByteBuffer> pending;
+    private final Thread writer;
+    private final Object progress = new Object();   // Guards written, notified on every commit
+    private long appended;      // Records handed to the writer (caller thread only)
+    private long written;       // Records written to the file
+    private long commits;       // Group commits performed
+    private long syncs;         // fsyncs performed
+    private long lastSync;      // When the writer last synced
+    private volatile IOException failure;   // First write error, reported on the next call
+
+    /**
+     * Constructor opens (or creates) the log that sits next to the ratings CSV and
+     * starts the background writer.
+     * @param csvPath the path to the ratings CSV
+     * @param policy when the writer syncs to disk
+     * @throws IOException if the log cannot be opened
+     */
+    public RatingLog(String csvPath, FsyncPolicy policy) throws IOException {
+        this(csvPath, policy, DEFAULT_FSYNC_INTERVAL);
+    }
+
+    /**
+     * Constructor opens (or creates) the log with a custom sync interval.
+     * @param csvPath the path to the ratings CSV
+     * @param policy when the writer syncs to disk
+     * @param fsyncIntervalMillis the minimum time between syncs under INTERVAL
+     * @throws IOException if the log cannot be opened
+     */
+    public RatingLog(String csvPath, FsyncPolicy policy, long fsyncIntervalMillis) throws IOException {
+        this.csvPath = csvPath;
+        this.sourceStamp = stamp(csvPath);
+        this.path = Path.of(csvPath + ".log");
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+        this.policy = policy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.pending = new LinkedBlockingQueue<>();
+        this.writer = new Thread(this::runWriter, "rating-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Records a new or changed rating. Returns without waiting for the disk.
+     * @param userID the user who rated
+     * @param diningHall the name of the dining hall
+     * @param dish the name of the dish
+     * @param rating the rating given
+     * @param time when the rating was made (in ms), so replay restores its age
+     * @throws IOException if an earlier write failed
+     */
+    public void logRating(int userID, String diningHall, String dish, int rating, long time) throws IOException {
+        append(ADD, userID, diningHall, dish, rating, time);
+    }
+
+    /**
+     * Records a removed rating. Returns without waiting for the disk.
+     * @param userID the user whose rating was removed
+     * @param diningHall the name of the dining hall
+     * @param dish the name of the dish
+     * @throws IOException if an earlier write failed
+     */
+    public void logDelete(int userID, String diningHall, String dish) throws IOException {
+        append(DELETE, userID, diningHall, dish, 0, 0);
+    }
+
+    /**
+     * Waits until everything logged so far is written and synced to disk.
+     * @throws IOException if a write or sync failed
+     */
+    public void flush() throws IOException {
+        long target = appended;
+        synchronized (progress) {
+            while (written < target && failure == null && writer.isAlive()) {
+                try {
+                    progress.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while flushing rating log");
+                }
+            }
+        }
+        checkFailure();
+        channel.force(false);
+    }
+
+    /**
+     * Returns the file to load ratings from: the base written by the last compaction if
+     * there is one and the CSV has not changed since, otherwise the source CSV. The log
+     * is always replayed on top of it.
+     * @param csvPath the path to the ratings CSV
+     * @return the path to load
+     */
+    public static String basePath(String csvPath) {
+        String base = csvPath + BASE_SUFFIX;
+        return isFresh(csvPath) ? base : csvPath;
+    }
+
+    /**
+     * Deletes the compacted base, its snapshot, and the log if the CSV has been edited
+     * or replaced since the base was written. The log only makes sense on top of the
+     * base, so it goes too and the CSV becomes the starting point again.
+     * Call this before opening the log.
+     * @param csvPath the path to the ratings CSV
+     * @return true if a stale base was discarded
+     * @throws IOException if the files cannot be deleted
+     */
+    public static boolean discardStaleBase(String csvPath) throws IOException {
+        String base = csvPath + BASE_SUFFIX;
+        if (!Files.exists(Path.of(base)) || isFresh(csvPath)) return false;
+        Files.delete(Path.of(base));
+        Files.deleteIfExists(Path.of(base + ".snap"));
+        Files.deleteIfExists(Path.of(csvPath + ".log"));
+        return true;
+    }
+
+    /**
+     * Applies every record in the log to the loaded ratings, oldest first.
+     * A torn or corrupt tail (from a crash mid-write) is cut off.
+     * @param users the map of user ID to user to update
+     * @param ratingIndex the rating index new users should report to
+     * @return the number of records applied
+     * @throws IOException if the log cannot be read
+     */
+    public long replay(Map<Integer, User> users, RatingIndex ratingIndex) throws IOException {
+        flush();
+        long size = channel.size();
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+        while (buf.hasRemaining()) {    // A read may stop short, so keep going until full or EOF
+            if (channel.read(buf, buf.position()) < 0) break;
+        }
+        buf.flip();
+        long read = buf.limit();    // Anything past this was not there to read
+
+        long applied = 0;
+        CRC32 crc = new CRC32();
+        while (buf.remaining() >= 4) {
+            int start = buf.position();
+            int length = buf.getInt();
+            if (length < 12 || buf.remaining() < length + 4) {
+                buf.position(start);
+                break;  // Torn record
+            }
+            ByteBuffer payload = buf.slice(buf.position(), length);
+            buf.position(buf.position() + length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buf.getInt()) {
+                buf.position(start);
+                break;  // Corrupt record
+            }
+
+            byte type = payload.get();
+            int userID = payload.getInt();
+            int rating = payload.get();
+            String diningHall = readString(payload);
+            String dish = readString(payload);
+            User user = users.get(userID);
+            if (user == null) {
+                user = new User(userID, ratingIndex);
+                users.put(userID, user);
+            }
+            if (type == ADD) {
+                long time = payload.remaining() >= 8 ? payload.getLong() : 0;  // Older records have no time
+                user.rate(diningHall, dish, rating, time);
+            } else {
+                user.removeRating(diningHall, dish);
+            }
+            applied++;
+        }
+
+        if (read < size) throw new IOException("Rating log shrank while it was being read");
+        if (buf.position() < size) {
+            System.out.println("Rating log: dropping " + (size - buf.position()) + " bytes of incomplete records");
+            channel.truncate(buf.position());
+            channel.position(buf.position());
+        }
+        return applied;
+    }
+
+    /**
+     * Folds the log into a new base: writes every current rating to the base file next
+     * to the CSV (replacing it atomically), refreshes the base's snapshot, and empties
+     * the log. Rows are written by user ID with halls and dishes as first spelled, in
+     * the CSV's own format, so RatingLoader reads them back unchanged. That format has
+     * no time column, so the ratings' ages are kept by the snapshot; if the base ever
+     * has to be parsed instead, its ratings load as made on day 0.
+     * @param users the map of user ID to user, already including everything logged
+     * @throws IOException if the new base cannot be written, or a name cannot be
+     *         written as a CSV field (a line break, or a comma in a hall name)
+     */
+    public void compact(Map<Integer, User> users) throws IOException {
+        flush();
+        String basePath = csvPath + BASE_SUFFIX;
+        Path base = Path.of(basePath);
+        Path temp = Path.of(basePath + ".tmp");
+        List<Integer> ids = new ArrayList<>(users.keySet());
+        ids.sort(null);     // Stable order from one compaction to the next
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(BASE_HEADER + sourceStamp + "\n");
+            for (int id : ids) {
+                User user = users.get(id);
+                for (int i = 0; i < user.getRatingCount(); i++) {
+                    String dish = SymbolTable.DISHES.display(user.getDishIdAt(i));
+                    String hall = SymbolTable.HALLS.display(user.getHallIdAt(i));
+                    // The loader takes the rating and hall from the last two fields, so only the dish may hold commas
+                    if (hasLineBreak(dish) || hasLineBreak(hall) || hall.indexOf(',') >= 0) {
+                        Files.deleteIfExists(temp);
+                        throw new IOException("Cannot write rating for \"" + dish + "\" at \"" + hall + "\" as CSV");
+                    }
+                    out.write(id + "," + dish + "," + user.getRatingAt(i) + "," + hall + "\n");
+                }
+            }
+        }
+        Files.move(temp, base, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        new RatingSnapshot(basePath).write(users);  // Snapshot must match the new base
+        synchronized (progress) {
+            channel.truncate(0);
+            channel.position(0);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes and syncs everything pending, then stops the writer and closes the file.
+     * @throws IOException if the final write or sync failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            flush();
+        } finally {
+            pending.add(STOP);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * Encodes one record and queues it for the writer.
+     */
+    private void append(byte type, int userID, String diningHall, String dish, int rating, long time) throws IOException {
+        checkFailure();
+        byte[] hall = diningHall.getBytes(StandardCharsets.UTF_8);
+        byte[] name = dish.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + 4 + 1 + 2 + hall.length + 2 + name.length + (type == ADD ? 8 : 0);
+        ByteBuffer record = ByteBuffer.allocate(4 + length + 4);
+        record.putInt(length);
+        record.put(type).putInt(userID).put((byte) rating);
+        record.putShort((short) hall.length).put(hall);
+        record.putShort((short) name.length).put(name);
+        if (type == ADD) record.putLong(time);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, length);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        appended++;
+        pending.add(record);
+    }
+
+    /**
+     * Writer thread: waits for records, writes all queued records at once, syncs per policy.
+     * Under INTERVAL, writes that were not synced right away are synced once the interval
+     * runs out, even if nothing else is logged.
+     */
+    private void runWriter() {
+        List<ByteBuffer> batch = new ArrayList<>();
+        boolean unsynced = false;   // Written since the last sync (INTERVAL only)
+        try {
+            while (true) {
+                ByteBuffer first;
+                if (unsynced) {
+                    long remaining = lastSync + fsyncIntervalMillis - System.currentTimeMillis();
+                    first = remaining > 0 ? pending.poll(remaining, TimeUnit.MILLISECONDS) : null;
+                    if (first == null) {    // Interval is up with nothing new: sync what is there
+                        synchronized (progress) {
+                            channel.force(false);
+                            lastSync = System.currentTimeMillis();
+                            syncs++;
+                        }
+                        unsynced = false;
+                        continue;
+                    }
+                } else {
+                    first = pending.take(); // Block until there is work
+                }
+                batch.add(first);
+                pending.drainTo(batch);     // Then take everything else that queued up
+                boolean stop = batch.remove(STOP);
+                if (!batch.isEmpty()) {
+                    synchronized (progress) {
+                        ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                        while (buffers[buffers.length - 1].hasRemaining()) {
+                            channel.write(buffers);
+                        }
+                        long now = System.currentTimeMillis();
+                        if (policy == FsyncPolicy.ALWAYS
+                            || (policy == FsyncPolicy.INTERVAL && now - lastSync >= fsyncIntervalMillis)) {
+                            channel.force(false);
+                            lastSync = now;
+                            syncs++;
+                            unsynced = false;
+                        } else {
+                            unsynced = policy == FsyncPolicy.INTERVAL;
+                        }
+                        written += batch.size();
+                        commits++;
+                        progress.notifyAll();
+                    }
+                    batch.clear();
+                }
+                if (stop) return;
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (progress) {
+                progress.notifyAll();   // Release anyone waiting in flush()
+            }
+        }
+    }
+
+    /**
+     * Reads a short-length-prefixed UTF-8 string.
+     */
+    private static String readString(ByteBuffer buf) {
+        byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns whether a base exists and was written from the CSV as it is now.
+     */
+    private static boolean isFresh(String csvPath) {
+        Path base = Path.of(csvPath + BASE_SUFFIX);
+        if (!Files.exists(base)) return false;
+        try (BufferedReader in = Files.newBufferedReader(base, StandardCharsets.UTF_8)) {
+            return (BASE_HEADER + stamp(csvPath)).equals(in.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Describes the CSV by its size and modification time (in ms), or "none" if it is missing.
+     */
+    private static String stamp(String csvPath) {
+        Path csv = Path.of(csvPath);
+        try {
+            return Files.size(csv) + ":" + Files.getLastModifiedTime(csv).toMillis();
+        } catch (IOException e) {
+            return "none";
+        }
+    }
+
+    private static boolean hasLineBreak(String name) {
+        return name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0;
+    }
+
+    /**
+     * Rethrows a write error from the writer thread on the caller's thread.
+     */
+    private void checkFailure() throws IOException {
+        if (failure != null) throw new IOException("Rating log write failed", failure);
+    }
+
+    public long size() throws IOException { return this.channel.size(); }    // Bytes currently in the log
+    public long getCommits() { synchronized (progress) { return this.commits; } }  // Group commits so far
+    public long getSyncs() { synchronized (progress) { return this.syncs; } }  // fsyncs so far
+}
@@ -0,0 +1,168 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Map;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Versioned binary snapshot of the loaded ratings, so later launches can skip CSV parsing.
+ *
+ * Layout (big-endian):
+ *   magic, version, source CSV size, source CSV mtime,
+ *   hall count + length-prefixed UTF-8 hall names,
+ *   dish count + length-prefixed UTF-8 dish names,
+ *   row count, then five columns: user IDs, hall IDs, dish IDs (ints), ratings (bytes)
+ *   and the day each rating was made (unsigned shorts, see User.getDayAt).
+ * Hall and dish IDs are positions in the snapshot's own name lists, so the file stays
+ * valid no matter what the global SymbolTables hold when it is read back.
+ * The snapshot is ignored if the CSV's size or modification time no longer match.
+ */
+public class RatingSnapshot {
+    private static final int MAGIC = 0x54324453;    // "T2DS"
+    private static final int VERSION = 2;     // 2 added the day column
+
+    private final Path source;      // The CSV this snapshot was built from
+    private final Path snapshot;    // The snapshot file itself
+    private long rows;              // Ratings read by the last successful load
+
+    /**
+     * Constructor places the snapshot next to the CSV it caches.
+     * @param csvPath the path to the ratings CSV
+     */
+    public RatingSnapshot(String csvPath) {
+        this.source = Path.of(csvPath);
+        this.snapshot = Path.of(csvPath + ".snap");
+    }
+
+    /**
+     * Loads ratings from the snapshot if it exists and matches the CSV.
+     * @param users the map of user ID to user to fill
+     * @param ratingIndex the rating index new users should report to
+     * @return true if the snapshot was used, false if the CSV must be parsed instead
+     */
+    public boolean load(Map<Integer, User> users, RatingIndex ratingIndex) {
+        if (!Files.exists(snapshot)) return false;
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE));
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) return false;   // Not ours, or old format
+            if (header.getLong() != Files.size(source)
+                || header.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+                return false;   // CSV changed since the snapshot was written
+            }
+
+            int[] hallIds = readNames(header, SymbolTable.HALLS);   // Snapshot ID -> global ID
+            int[] dishIds = readNames(header, SymbolTable.DISHES);
+            int n = header.getInt();
+            long pos = header.position();
+            if (pos + 15L * n != size) return false;   // Truncated or corrupt
+
+            int[] userColumn = readInts(channel, pos, n);
+            int[] hallColumn = readInts(channel, pos + 4L * n, n);
+            int[] dishColumn = readInts(channel, pos + 8L * n, n);
+            byte[] ratingColumn = new byte[n];
+            channel.map(FileChannel.MapMode.READ_ONLY, pos + 12L * n, n).get(ratingColumn);
+            short[] dayColumn = new short[n];
+            channel.map(FileChannel.MapMode.READ_ONLY, pos + 13L * n, 2L * n).asShortBuffer().get(dayColumn);
+
+            if (ratingIndex != null) ratingIndex.setBulkLoading(true);  // Build leaderboards once at the end
+            try {
+                for (int i = 0; i < n; i++) {
+                    int userID = userColumn[i];
+                    User user = users.get(userID);
+                    if (user == null) {
+                        user = new User(userID, ratingIndex);
+                        users.put(userID, user);
+                    }
+                    user.rate(hallIds[hallColumn[i]], dishIds[dishColumn[i]], ratingColumn[i],
+                        Short.toUnsignedInt(dayColumn[i]) * User.DAY_MILLIS);
+                }
+            } finally {
+                if (ratingIndex != null) ratingIndex.setBulkLoading(false);
+            }
+            this.rows = n;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable snapshot: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes every user's ratings to a new snapshot, replacing the old one atomically.
+     * @param users the map of user ID to user to save
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void write(Map<Integer, User> users) throws IOException {
+        int n = 0;
+        for (User user : users.values()) n += user.getRatingCount();
+
+        Path temp = Path.of(snapshot + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(Files.size(source));
+            out.writeLong(Files.getLastModifiedTime(source).toMillis());
+            writeNames(out, SymbolTable.HALLS);
+            writeNames(out, SymbolTable.DISHES);
+            out.writeInt(n);
+            for (int column = 0; column < 5; column++) {    // One pass per column
+                for (User user : users.values()) {
+                    for (int i = 0; i < user.getRatingCount(); i++) {
+                        switch (column) {
+                            case 0: out.writeInt(user.getUserID()); break;
+                            case 1: out.writeInt(user.getHallIdAt(i)); break;
+                            case 2: out.writeInt(user.getDishIdAt(i)); break;
+                            case 3: out.writeByte(user.getRatingAt(i)); break;
+                            default: out.writeShort(user.getDayAt(i));
+                        }
+                    }
+                }
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a length-prefixed name list and interns each name.
+     * @return a map from snapshot ID to global symbol ID
+     */
+    private static int[] readNames(ByteBuffer buf, SymbolTable symbols) {
+        int[] ids = new int[buf.getInt()];
+        for (int i = 0; i < ids.length; i++) {
+            byte[] bytes = new byte[buf.getInt()];
+            buf.get(bytes);
+            ids[i] = symbols.intern(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return ids;
+    }
+
+    /**
+     * Writes every name in a symbol table, in ID order, as length-prefixed UTF-8.
+     * Names are written as first spelled so they survive another round trip unchanged.
+     */
+    private static void writeNames(DataOutputStream out, SymbolTable symbols) throws IOException {
+        int count = symbols.size();
+        out.writeInt(count);
+        for (int id = 0; id < count; id++) {
+            byte[] bytes = symbols.display(id).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads one int column straight from a mapping of its region.
+     */
+    private static int[] readInts(FileChannel channel, long pos, int n) throws IOException {
+        int[] column = new int[n];
+        channel.map(FileChannel.MapMode.READ_ONLY, pos, 4L * n).asIntBuffer().get(column);
+        return column;
+    }
+
+    public long getRows() { return this.rows; }    // Ratings read by the last successful load
+}
@@ -0,0 +1,144 @@
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * A snapshot of every rating as one columnar table: parallel arrays of hall ID, dish
+ * ID, and rating, one row per rating, with each user's rows stored together and
+ * recorded once as a run. Analytics (histograms and averages per hall or dish,
+ * activity per user) are tight loops over a few primitive arrays instead of a walk
+ * over every User object.
+ *
+ * The table is built on demand from the users and is not kept in sync with later
+ * changes, so it costs nothing on the rating write path and its memory can be
+ * collected once the analytics are done. It never changes after construction, so it
+ * is safe to read from any thread.
+ */
+public class RatingTable {
+    private static final int PARALLEL_CHUNK = 1 << 16;  // Rows per task when aggregating in parallel
+
+    /**
+     * What to group ratings by.
+     */
+    public enum GroupBy { HALL, DISH }
+
+    private final int[] hallIds;    // Row -> SymbolTable.HALLS ID
+    private final int[] dishIds;    // Row -> SymbolTable.DISHES ID
+    private final byte[] ratings;   // Row -> rating (1 to User.MAX_RATING)
+    private final int size;         // Number of rows
+    private final int[] runUsers;   // Run -> user ID (one run per user with ratings)
+    private final int[] runCounts;  // Run -> number of rows in the run
+
+    /**
+     * Constructor copies every rating the users hold into the columns, one user's rows
+     * after another. The users must not change ratings while the table is being built.
+     * @param users the users whose ratings to copy
+     */
+    public RatingTable(Collection<User> users) {
+        int total = 0;
+        int rated = 0;
+        for (User user : users) {
+            total += user.getRatingCount();
+            if (user.getRatingCount() > 0) rated++;
+        }
+        this.runUsers = new int[rated];
+        this.runCounts = new int[rated];
+        this.hallIds = new int[total];
+        this.dishIds = new int[total];
+        this.ratings = new byte[total];
+        int row = 0;
+        int run = 0;
+        for (User user : users) {
+            int count = user.getRatingCount();
+            if (count == 0) continue;
+            runUsers[run] = user.getUserID();
+            runCounts[run++] = count;
+            for (int i = 0; i < count; i++, row++) {
+                hallIds[row] = user.getHallIdAt(i);
+                dishIds[row] = user.getDishIdAt(i);
+                ratings[row] = (byte) user.getRatingAt(i);
+            }
+        }
+        this.size = row;
+    }
+
+    /**
+     * Counts ratings of each star value per hall or per dish.
+     * @param by the column to group by
+     * @param parallel true to split the rows across the common fork-join pool
+     * @return [group ID][rating] -> number of ratings, for ratings 1 to User.MAX_RATING
+     *         (index 0 is unused; groups with no ratings are all zeros)
+     */
+    public long[][] histogram(GroupBy by, boolean parallel) {
+        int[] groups = column(by);
+        int width = groupCount(groups);
+        if (!parallel || size < 2 * PARALLEL_CHUNK) return histogram(groups, 0, size, width);
+        int chunks = (size + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        int rows = size;
+        return IntStream.range(0, chunks).parallel()
+            .mapToObj(c -> histogram(groups, c * PARALLEL_CHUNK, Math.min(rows, (c + 1) * PARALLEL_CHUNK), width))
+            .reduce(RatingTable::add)
+            .orElseGet(() -> new long[width][User.MAX_RATING + 1]);
+    }
+
+    /**
+     * Averages the ratings per hall or per dish.
+     * @param by the column to group by
+     * @return group ID -> average rating (0 for groups with no ratings)
+     */
+    public double[] averages(GroupBy by) {
+        int[] groups = column(by);
+        int width = groupCount(groups);
+        long[] sums = new long[width];
+        int[] counts = new int[width];
+        for (int row = 0; row < size; row++) {
+            sums[groups[row]] += ratings[row];
+            counts[groups[row]]++;
+        }
+        double[] result = new double[width];
+        for (int g = 0; g < width; g++) {
+            result[g] = counts[g] == 0 ? 0 : (double) sums[g] / counts[g];
+        }
+        return result;
+    }
+
+    /**
+     * Counts how many ratings each user has made, from the runs recorded at build time.
+     * @return {user IDs, rating counts}, two parallel arrays with one entry per user
+     *         who has rated anything, in the order the users were given
+     */
+    public int[][] countByUser() {
+        return new int[][] {runUsers.clone(), runCounts.clone()};
+    }
+
+    /**
+     * Counts ratings with a given star value at one hall or for one dish.
+     */
+    private long[][] histogram(int[] groups, int from, int to, int width) {
+        long[][] counts = new long[width][User.MAX_RATING + 1];
+        for (int row = from; row < to; row++) {
+            counts[groups[row]][ratings[row]]++;
+        }
+        return counts;
+    }
+
+    private static long[][] add(long[][] a, long[][] b) {
+        for (int g = 0; g < a.length; g++) {
+            for (int r = 0; r <= User.MAX_RATING; r++) a[g][r] += b[g][r];
+        }
+        return a;
+    }
+
+    private int[] column(GroupBy by) {
+        return by == GroupBy.HALL ? hallIds : dishIds;
+    }
+
+    private int groupCount(int[] groups) {
+        int max = -1;
+        for (int row = 0; row < size; row++) max = Math.max(max, groups[row]);
+        return max + 1;
+    }
+
+    public int size() { return this.size; }    // Number of ratings
+}
@@ -0,0 +1,153 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Occupancy engine that keeps a ring of per-tick diner counters instead of User objects.
+ * Because mealLength is fixed and arrivals come in non-decreasing simulation time,
+ * everyone who entered during the same tick leaves together, so one counter per tick
+ * is enough. Enqueue, dequeue, and size are O(1) amortized and never allocate.
+ * Entry times are tracked at tick resolution (the first arrival in a tick stands in for all of them).
+ * Each slot also records the running total of arrivals up to its tick, so the k-th
+ * departure is found with a binary search over the live ticks.
+ */
+public class RingOccupancy implements InterfaceOccupancy {
+    public static final long DEFAULT_TICK_LENGTH = 60_000;  // One simulated minute per tick
+
+    private final long mealLength;  // how long a user stays in the hall (in ms)
+    private final long tickLength;  // width of one ring slot (in ms)
+    private final int[] counts;     // Diners who entered during each live tick
+    private final long[] entryTimes;    // Entry time recorded for each live tick
+    private final long[] cumulative;    // Total arrivals ever, as of the end of each live tick
+    private long arrived;   // Total diners ever admitted
+    private long departed;  // Total diners ever dequeued
+    private long headTick;  // Oldest tick that may still hold diners
+    private long tailTick;  // Newest tick that has received diners
+    private int size;       // Total diners across all slots
+
+    /**
+     * Constructor initializes an empty ring with the default one-minute tick.
+     * @param mealLength the time a user spends in the hall (in ms)
+     */
+    public RingOccupancy(long mealLength) {
+        this(mealLength, DEFAULT_TICK_LENGTH);
+    }
+
+    /**
+     * Constructor initializes an empty ring large enough to hold one full meal length of ticks.
+     * @param mealLength the time a user spends in the hall (in ms)
+     * @param tickLength the width of one slot (in ms)
+     */
+    public RingOccupancy(long mealLength, long tickLength) {
+        if (tickLength <= 0) throw new IllegalArgumentException("tickLength must be positive");
+        this.mealLength = mealLength;
+        this.tickLength = tickLength;
+        int slots = (int) ((mealLength + tickLength - 1) / tickLength) + 1;   // Every tick a diner can span, plus one
+        this.counts = new int[slots];
+        this.entryTimes = new long[slots];
+        this.cumulative = new long[slots];
+        this.arrived = 0;
+        this.departed = 0;
+        this.headTick = 0;
+        this.tailTick = -1;
+        this.size = 0;
+    }
+
+    /**
+     * Records a diner entering. Arrivals must come in non-decreasing simulation time.
+     * @param user the user entering (only their entry time is updated)
+     * @param simTime the current simulation time
+     */
+    public void enqueue(User user, long simTime) {
+        user.setEntryTime(simTime); // Mark when they entered
+        add(simTime, 1);
+    }
+
+    /**
+     * Records a group of anonymous diners in one step, without allocating anything.
+     * @param count the number of diners entering
+     * @param simTime the current simulation time
+     */
+    public void enqueueBatch(int count, long simTime) {
+        if (count > 0) add(simTime, count);
+    }
+
+    /**
+     * Adds anonymous diners at the given time.
+     * @param simTime the current simulation time
+     * @param count the number of diners
+     */
+    private void add(long simTime, int count) {
+        long tick = simTime / tickLength;
+        if (tick < tailTick) {
+            throw new IllegalArgumentException("Arrivals must be in non-decreasing time: " + simTime);
+        }
+
+        if (tick > tailTick) {
+            if (tick - headTick >= counts.length) {
+                dequeue(simTime);   // Slots about to be reused are already past their meal length
+            }
+            long from = Math.max(tailTick + 1, tick - counts.length + 1);
+            for (long t = from; t <= tick; t++) {   // Clear slots for skipped ticks
+                counts[slot(t)] = 0;
+                cumulative[slot(t)] = arrived;
+            }
+            if (size == 0) headTick = tick;
+            tailTick = tick;
+            entryTimes[slot(tick)] = simTime;
+        }
+        counts[slot(tick)] += count;
+        arrived += count;
+        cumulative[slot(tick)] = arrived;
+        size += count;
+    }
+
+    /**
+     * Drops every tick whose diners have finished their meal.
+     * @param simTime the current simulation time
+     */
+    public void dequeue(long simTime) {
+        while (size > 0 && headTick <= tailTick) {
+            int s = slot(headTick);
+            if (counts[s] > 0) {
+                if (entryTimes[s] + mealLength > simTime) break;  // Stop once a tick isn't done
+                size -= counts[s];
+                departed += counts[s];
+                counts[s] = 0;
+            }
+            headTick++;
+        }
+        if (size == 0) headTick = tailTick + 1; // Nothing live
+    }
+
+    /**
+     * Estimates the wait time for the next arrival. The person at the front of the
+     * line gets a seat when the k-th seated diner leaves, where k is the number of
+     * people waiting; the tick holding that departure is found by binary search.
+     * @param simTime the current simulation time
+     * @param maxSize the hall's seating capacity
+     * @return estimated wait time in milliseconds
+     */
+    public long getWaitTime(long simTime, int maxSize) {
+        int inHall = Math.min(size, maxSize);   // People currently seated
+        int waitingOutside = size - inHall;     // Overflow in line
+        if (waitingOutside <= 0) return 0;      // No overflow, no wait
+
+        long needed = departed + Math.min(waitingOutside, inHall);  // Running total at that departure
+        long lo = headTick;
+        long hi = tailTick;
+        while (lo < hi) {   // First live tick whose running total reaches it
+            long mid = (lo + hi) >>> 1;
+            if (cumulative[slot(mid)] >= needed) hi = mid;
+            else lo = mid + 1;
+        }
+        return Math.max(0, entryTimes[slot(lo)] + mealLength - simTime);
+    }
+
+    /**
+     * Maps a tick to its ring slot.
+     */
+    private int slot(long tick) {
+        return (int) (tick % counts.length);
+    }
+
+    public int size() { return this.size; }    // Number of diners in the hall
+}
@@ -0,0 +1,231 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Runs many independent simulated days in parallel for capacity planning.
+ * Scenario i is one SimulationEngine day on fresh halls with seed + i (the same day
+ * `Program --headless 1 <seed + i>` prints), so any scenario can be replayed alone.
+ * Scenarios are split across a fork-join pool, and each task adds its days into
+ * integer totals per hall: a wait time histogram, the sum and max of daily peak
+ * diners, and minutes spent "full". Integer sums don't depend on the order they are
+ * added in, so the results are identical for a given seed whatever the thread count.
+ */
+public class ScenarioRunner {
+    private static final int MAX_WAIT_SECONDS = 4 * 60 * 60;    // Longer waits land in the last bucket
+
+    private final int scenarios;
+    private final long seed;
+    private final int parallelism;
+    private final ArrivalModel arrivals;    // Shared by every scenario (models are read-only)
+    private final int hallCount;    // Halls per scenario
+    private HallSummary[] summaries;    // Results of the last run, in dashboard order
+    private long elapsedNanos;          // Duration of the last run
+
+    /**
+     * Constructor sets up a batch of scenarios.
+     * @param scenarios the number of simulated days to run
+     * @param seed the seed for scenario 0 (scenario i uses seed + i)
+     * @param parallelism the number of worker threads
+     */
+    public ScenarioRunner(int scenarios, long seed, int parallelism) {
+        this(scenarios, seed, parallelism, new ConstantArrivals(SimulationEngine.ARRIVALS_PER_TICK));
+    }
+
+    /**
+     * Constructor sets up a batch of scenarios with a custom arrival model.
+     * @param scenarios the number of simulated days to run
+     * @param seed the seed for scenario 0 (scenario i uses seed + i)
+     * @param parallelism the number of worker threads
+     * @param arrivals how many diners arrive each tick
+     */
+    public ScenarioRunner(int scenarios, long seed, int parallelism, ArrivalModel arrivals) {
+        if (scenarios <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("scenarios and parallelism must be positive");
+        }
+        this.scenarios = scenarios;
+        this.seed = seed;
+        this.parallelism = parallelism;
+        this.arrivals = arrivals;
+        this.hallCount = Program.createDiningHalls(null, OccupancyEngine.RING).size();
+    }
+
+    /**
+     * Runs every scenario and aggregates the results.
+     * @return one summary per dining hall, in dashboard order
+     */
+    public List<HallSummary> run() {
+        long start = System.nanoTime();
+        int grain = Math.max(1, scenarios / (parallelism * 8));   // Enough tasks to keep every thread busy
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Totals totals;
+        try {
+            totals = pool.invoke(new ScenarioTask(0, scenarios, grain));
+        } finally {
+            pool.shutdown();
+        }
+
+        List<DiningHall> halls = Program.createDiningHalls(null, OccupancyEngine.RING);
+        this.summaries = new HallSummary[halls.size()];
+        for (int h = 0; h < halls.size(); h++) {
+            this.summaries[h] = new HallSummary(halls.get(h).getName(), totals, h, scenarios);
+        }
+        this.elapsedNanos = System.nanoTime() - start;
+        return List.of(this.summaries);
+    }
+
+    /**
+     * Runs one scenario and adds it to a running total.
+     */
+    private void runScenario(int index, Totals totals) {
+        List<DiningHall> halls = Program.createDiningHalls(null, OccupancyEngine.RING);
+        SimulationEngine engine = new SimulationEngine(halls, Program.openingTimes(halls),
+            Program.closingTimes(halls), SimulationEngine.END_TIME, arrivals, seed + index);
+        engine.run();
+        for (int h = 0; h < halls.size(); h++) {
+            SimulationEngine.HallSeries series = engine.getSeries(h);
+            long[] histogram = totals.waits[h];
+            int peak = 0;
+            for (int i = 0; i < series.size(); i++) {
+                String status = series.getStatus(i);
+                if (status.equals("closed")) continue;  // Only count minutes the hall was taking diners
+                histogram[(int) Math.min(MAX_WAIT_SECONDS, series.getWait(i) / 1000)]++;
+                if (status.equals("full")) totals.fullMinutes[h]++;
+                peak = Math.max(peak, series.getDiners(i));
+            }
+            totals.peakSum[h] += peak;
+            totals.peakMax[h] = Math.max(totals.peakMax[h], peak);
+            totals.arrivals[h] += series.getArrivals();
+        }
+    }
+
+    public long getElapsedMillis() { return this.elapsedNanos / 1_000_000; }   // Duration of the last run
+    public int getScenarios() { return this.scenarios; }   // Scenarios per run
+    public int getParallelism() { return this.parallelism; }   // Worker threads
+
+    /**
+     * Computes the throughput of the last run.
+     * @return scenarios completed per second
+     */
+    public double getScenariosPerSecond() {
+        return this.elapsedNanos == 0 ? 0 : this.scenarios * 1e9 / this.elapsedNanos;
+    }
+
+    /**
+     * Splits the scenario range in half until each task has a few scenarios to run.
+     */
+    private final class ScenarioTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        ScenarioTask(int from, int to, int grain) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= grain) {
+                Totals totals = new Totals(hallCount);
+                for (int i = from; i < to; i++) runScenario(i, totals);
+                return totals;
+            }
+            int mid = (from + to) >>> 1;
+            ScenarioTask left = new ScenarioTask(from, mid, grain);
+            left.fork();
+            Totals right = new ScenarioTask(mid, to, grain).compute();
+            return left.join().add(right);
+        }
+    }
+
+    /**
+     * Integer totals per hall index. Adding them is exact, so merge order doesn't matter.
+     */
+    private static final class Totals {
+        private final int halls;
+        private final long[][] waits;       // Open minutes per wait, in seconds
+        private final long[] fullMinutes;
+        private final long[] peakSum;
+        private final int[] peakMax;
+        private final long[] arrivals;
+
+        Totals(int halls) {
+            this.halls = halls;
+            this.waits = new long[halls][MAX_WAIT_SECONDS + 1];
+            this.fullMinutes = new long[halls];
+            this.peakSum = new long[halls];
+            this.peakMax = new int[halls];
+            this.arrivals = new long[halls];
+        }
+
+        Totals add(Totals other) {
+            for (int h = 0; h < halls; h++) {
+                for (int s = 0; s <= MAX_WAIT_SECONDS; s++) waits[h][s] += other.waits[h][s];
+                fullMinutes[h] += other.fullMinutes[h];
+                peakSum[h] += other.peakSum[h];
+                peakMax[h] = Math.max(peakMax[h], other.peakMax[h]);
+                arrivals[h] += other.arrivals[h];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Aggregate results for one dining hall across every scenario.
+     */
+    public static final class HallSummary {
+        private final String name;
+        private final long waitP50;     // Wait time percentiles over open minutes (in ms)
+        private final long waitP90;
+        private final long waitP99;
+        private final double meanPeakDiners;
+        private final int maxPeakDiners;
+        private final double meanMinutesFull;
+        private final double fractionFull;  // Share of open minutes spent "full"
+        private final double meanArrivals;
+
+        private HallSummary(String name, Totals totals, int h, int scenarios) {
+            long[] histogram = totals.waits[h];
+            long open = 0;
+            for (long count : histogram) open += count;
+            this.name = name;
+            this.waitP50 = percentile(histogram, open, 0.50);
+            this.waitP90 = percentile(histogram, open, 0.90);
+            this.waitP99 = percentile(histogram, open, 0.99);
+            this.meanPeakDiners = (double) totals.peakSum[h] / scenarios;
+            this.maxPeakDiners = totals.peakMax[h];
+            this.meanMinutesFull = (double) totals.fullMinutes[h] / scenarios;
+            this.fractionFull = open == 0 ? 0 : (double) totals.fullMinutes[h] / open;
+            this.meanArrivals = (double) totals.arrivals[h] / scenarios;
+        }
+
+        /**
+         * Finds the smallest wait (to the second) that at least p of the samples don't exceed.
+         */
+        private static long percentile(long[] histogram, long total, double p) {
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(p * total);
+            long seen = 0;
+            for (int s = 0; s < histogram.length; s++) {
+                seen += histogram[s];
+                if (seen >= rank) return s * 1000L;
+            }
+            return MAX_WAIT_SECONDS * 1000L;
+        }
+
+        public String getName() { return this.name; }  // Hall name
+        public long getWaitP50() { return this.waitP50; }  // Median wait (in ms)
+        public long getWaitP90() { return this.waitP90; }  // 90th percentile wait (in ms)
+        public long getWaitP99() { return this.waitP99; }  // 99th percentile wait (in ms)
+        public double getMeanPeakDiners() { return this.meanPeakDiners; }  // Average daily peak
+        public int getMaxPeakDiners() { return this.maxPeakDiners; }   // Highest peak in any scenario
+        public double getMeanMinutesFull() { return this.meanMinutesFull; }    // Average minutes "full" per day
+        public double getFractionFull() { return this.fractionFull; }  // Share of open time spent "full"
+        public double getMeanArrivals() { return this.meanArrivals; }  // Average diners admitted per day
+    }
+}
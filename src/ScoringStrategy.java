@@ -0,0 +1,60 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Interface for how a dish's ratings turn into the score its leaderboard ranks by.
+ * A score is computed only from a dish's running totals in DishStats (and the hall's
+ * mean rating), so switching strategies re-sorts the totals and never rescans users.
+ */
+public interface ScoringStrategy {
+    /** The plain average rating. */
+    ScoringStrategy MEAN = new MeanScoring();
+
+    /**
+     * Scores a dish.
+     * @param stats the dish's running totals (count is at least 1)
+     * @param prior the mean of every rating at the dish's hall
+     * @return the score, on the 1 to 5 star scale (higher is better)
+     */
+    double score(DishStats stats, double prior);
+
+    /**
+     * Tells the index whether scores depend on the hall's mean rating, in which case
+     * boards are rebuilt when that mean drifts.
+     * @return true if score() uses the prior
+     */
+    default boolean usesPrior() {
+        return false;
+    }
+
+    /**
+     * Returns a short name for headings.
+     * @return the name
+     */
+    String getName();
+
+    /**
+     * Builds a strategy from a short description, as used on the command line:
+     * "mean", "bayes:5" (prior worth 5 ratings), "wilson:1.96" (z for the confidence
+     * level), or "decayed" (recent ratings count more). The number is optional.
+     * @param spec the description
+     * @return the scoring strategy
+     * @throws IllegalArgumentException if the description is not understood
+     */
+    static ScoringStrategy parse(String spec) {
+        int colon = spec.indexOf(':');
+        String kind = (colon < 0 ? spec : spec.substring(0, colon)).trim().toLowerCase();
+        String value = colon < 0 ? null : spec.substring(colon + 1).trim();
+        switch (kind) {
+            case "mean":
+                return MEAN;
+            case "bayes":
+                return value == null ? new BayesianScoring() : new BayesianScoring(Double.parseDouble(value));
+            case "wilson":
+                return value == null ? new WilsonScoring() : new WilsonScoring(Double.parseDouble(value));
+            case "decayed":
+                return new DecayedScoring();
+            default:
+                throw new IllegalArgumentException("Unknown scoring strategy: " + kind);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Headless discrete-event version of Program.runSimulation.
+ * Openings, closings, arrival batches, departures, and samples are events in a
+ * priority queue, and the clock jumps straight from one event to the next, so a
+ * full day runs in milliseconds instead of minutes. The same DiningHall methods
+ * are driven in the same order as the live simulation (departures, then opening
+ * and closing, then arrivals), and every hall's status, diners, and wait time are
+ * recorded once per sample interval. Arriving diners pick an open hall through a
+ * HallSampler driven by a SplittableRandom, so a seed always replays the same day.
+ */
+public class SimulationEngine {
+    public static final long TICK_LENGTH = 60_000;  // Arrival batches arrive once a simulated minute
+    public static final long END_TIME = 15_300_000; // 3:00 PM, when the live simulation stops
+    public static final int ARRIVALS_PER_TICK = 20; // Same load as the live simulation by default
+
+    // Event types, in the order they run when they share a time
+    private static final int DEPARTURE = 0;
+    private static final int OPEN = 1;
+    private static final int CLOSE = 2;
+    private static final int ARRIVAL = 3;
+    private static final int SAMPLE = 4;
+
+    private final List<DiningHall> halls;
+    private final long[] openAt;    // Hall index -> opening time
+    private final long[] closeAt;   // Hall index -> closing time
+    private final long endTime;
+    private final ArrivalModel arrivals;    // How many diners arrive each tick
+    private final SplittableRandom random;
+    private final HallSampler sampler;  // Draws open halls by popularity
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private final int[] cohort;     // Hall index -> diners arriving this tick
+    private final long[] lastDeparture;     // Hall index -> latest departure event scheduled
+    private final HallSeries[] series;      // Hall index -> recorded samples
+    private long sequence;      // Tie breaker so equal events run in scheduling order
+    private int admitted;       // Diners admitted so far
+    private long eventsRun;     // Events processed by the last run
+
+    /**
+     * Constructor sets up a simulated day with the live simulation's defaults.
+     * @param halls the dining halls to simulate (they should be freshly constructed)
+     * @param openingTimes the time each hall starts accepting diners
+     * @param closingTimes the time each hall stops accepting diners
+     * @param seed the seed for hall choices, so a run can be repeated
+     */
+    public SimulationEngine(List<DiningHall> halls, Map<DiningHall, Long> openingTimes,
+                            Map<DiningHall, Long> closingTimes, long seed) {
+        this(halls, openingTimes, closingTimes, END_TIME, new ConstantArrivals(ARRIVALS_PER_TICK), seed);
+    }
+
+    /**
+     * Constructor sets up a simulated day.
+     * @param halls the dining halls to simulate (they should be freshly constructed)
+     * @param openingTimes the time each hall starts accepting diners
+     * @param closingTimes the time each hall stops accepting diners
+     * @param endTime the simulation time at which the day ends
+     * @param arrivals how many diners arrive each tick
+     * @param seed the seed for hall choices, so a run can be repeated
+     */
+    public SimulationEngine(List<DiningHall> halls, Map<DiningHall, Long> openingTimes,
+                            Map<DiningHall, Long> closingTimes, long endTime, ArrivalModel arrivals, long seed) {
+        this.halls = halls;
+        this.openAt = new long[halls.size()];
+        this.closeAt = new long[halls.size()];
+        this.endTime = endTime;
+        this.arrivals = arrivals;
+        this.random = new SplittableRandom(seed);
+        this.sampler = new HallSampler(halls);
+        this.cohort = new int[halls.size()];
+        this.lastDeparture = new long[halls.size()];
+        this.series = new HallSeries[halls.size()];
+        for (int i = 0; i < halls.size(); i++) {
+            DiningHall dh = halls.get(i);
+            this.openAt[i] = openingTimes.getOrDefault(dh, Long.MAX_VALUE);
+            this.closeAt[i] = closingTimes.getOrDefault(dh, Long.MAX_VALUE);
+            this.series[i] = new HallSeries(dh.getName(), (int) (endTime / TICK_LENGTH) + 1);
+        }
+    }
+
+    /**
+     * Runs the whole day as fast as possible.
+     */
+    public void run() {
+        for (int i = 0; i < halls.size(); i++) {
+            if (openAt[i] <= endTime) schedule(openAt[i], OPEN, i);
+            if (closeAt[i] <= endTime) schedule(closeAt[i], CLOSE, i);
+            lastDeparture[i] = Long.MIN_VALUE;
+        }
+        for (long t = 0; t <= endTime; t += TICK_LENGTH) {
+            schedule(t, ARRIVAL, -1);
+            if (t < endTime) schedule(t, SAMPLE, -1);   // The live simulation stops before drawing the last tick
+        }
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            eventsRun++;
+            switch (event.type) {
+                case DEPARTURE: {
+                    DiningHall dh = halls.get(event.hall);
+                    dh.dequeueUsers(event.time);
+                    refresh(dh);
+                    break;
+                }
+                case OPEN:
+                    halls.get(event.hall).updateStatus("open");
+                    break;
+                case CLOSE:
+                    halls.get(event.hall).updateStatus("closed");   // Closed for new users only
+                    break;
+                case ARRIVAL:
+                    arrive(event.time);
+                    break;
+                default:
+                    sample(event.time);
+            }
+        }
+    }
+
+    /**
+     * Draws this tick's arrivals, splits them across open halls by popularity, and
+     * admits each hall's share as one batch.
+     */
+    private void arrive(long simTime) {
+        int count = arrivals.arrivals(simTime, random);
+        sampler.update(simTime);    // Rebuilds only if a hall opened or closed
+        sampler.distribute(count, random, cohort);
+        for (int h = 0; h < halls.size(); h++) {
+            if (cohort[h] == 0) continue;
+            DiningHall dh = halls.get(h);
+            dh.enqueueBatch(cohort[h], simTime);
+            series[h].arrivals += cohort[h];
+            admitted += cohort[h];
+            long leaveAt = simTime + dh.getMealLength();
+            if (leaveAt > lastDeparture[h] && leaveAt <= endTime) {
+                schedule(leaveAt, DEPARTURE, h);    // One departure event per hall per tick
+                lastDeparture[h] = leaveAt;
+            }
+        }
+        for (DiningHall dh : halls) refresh(dh);
+    }
+
+    /**
+     * Recomputes a hall's status from its occupancy unless it is closed.
+     */
+    private static void refresh(DiningHall dh) {
+        if (!dh.getStatus().equals("closed")) dh.updateStatus("open");
+    }
+
+    /**
+     * Records every hall's state, as the live dashboard would show it.
+     */
+    private void sample(long simTime) {
+        for (int i = 0; i < halls.size(); i++) {
+            DiningHall dh = halls.get(i);
+            String status = dh.getStatus();
+            long wait = status.equals("closed") ? 0 : dh.getWaitTime(simTime);
+            series[i].add(simTime, status, dh.getOccupancy(), wait);
+        }
+    }
+
+    private void schedule(long time, int type, int hall) {
+        events.add(new Event(time, type, hall, sequence++));
+    }
+
+    /**
+     * Writes every hall's time series as CSV rows: day,time,hall,status,diners,wait_ms.
+     * @param out where to write
+     * @param day the day label for the first column
+     * @param header true to write the header row first
+     * @throws IOException if writing fails
+     */
+    public void writeCsv(Appendable out, int day, boolean header) throws IOException {
+        if (header) out.append("day,time,hall,status,diners,wait_ms\n");
+        for (HallSeries s : series) {
+            for (int i = 0; i < s.size; i++) {
+                out.append(String.valueOf(day)).append(',')
+                   .append(Program.convertTo12hrClock(s.times[i])).append(',')
+                   .append(s.name).append(',')
+                   .append(s.statuses[i]).append(',')
+                   .append(String.valueOf(s.diners[i])).append(',')
+                   .append(String.valueOf(s.waits[i])).append('\n');
+            }
+        }
+    }
+
+    public HallSeries getSeries(int hallIndex) { return this.series[hallIndex]; }   // Samples for one hall
+    public long getEventsRun() { return this.eventsRun; }   // Events processed by the last run
+    public int getAdmitted() { return this.admitted; }  // Diners who arrived at an open hall
+
+    /**
+     * One hall's samples, in time order.
+     */
+    public static final class HallSeries {
+        private final String name;
+        private long[] times;
+        private String[] statuses;
+        private int[] diners;
+        private long[] waits;
+        private int size;
+        private int arrivals;   // Diners admitted over the day
+
+        private HallSeries(String name, int capacity) {
+            this.name = name;
+            this.times = new long[capacity];
+            this.statuses = new String[capacity];
+            this.diners = new int[capacity];
+            this.waits = new long[capacity];
+        }
+
+        private void add(long time, String status, int count, long wait) {
+            if (size == times.length) {
+                int grown = Math.max(16, size * 2);
+                times = Arrays.copyOf(times, grown);
+                statuses = Arrays.copyOf(statuses, grown);
+                diners = Arrays.copyOf(diners, grown);
+                waits = Arrays.copyOf(waits, grown);
+            }
+            times[size] = time;
+            statuses[size] = status;
+            diners[size] = count;
+            waits[size] = wait;
+            size++;
+        }
+
+        /**
+         * Finds the most diners seen in any sample.
+         * @return the peak occupancy
+         */
+        public int getPeakDiners() {
+            int peak = 0;
+            for (int i = 0; i < size; i++) peak = Math.max(peak, diners[i]);
+            return peak;
+        }
+
+        /**
+         * Finds the longest wait seen in any sample.
+         * @return the peak wait time in milliseconds
+         */
+        public long getPeakWait() {
+            long peak = 0;
+            for (int i = 0; i < size; i++) peak = Math.max(peak, waits[i]);
+            return peak;
+        }
+
+        public String getName() { return this.name; }  // Hall name
+        public int size() { return this.size; }    // Number of samples
+        public long getTime(int i) { return this.times[i]; }   // Simulation time of a sample
+        public String getStatus(int i) { return this.statuses[i]; }    // Status at a sample
+        public int getDiners(int i) { return this.diners[i]; }  // Diners at a sample
+        public long getWait(int i) { return this.waits[i]; }    // Wait time at a sample
+        public int getArrivals() { return this.arrivals; }  // Diners admitted over the day
+    }
+
+    /**
+     * A scheduled event. Ordered by time, then type, then scheduling order.
+     */
+    private static final class Event implements Comparable<Event> {
+        private final long time;
+        private final int type;
+        private final int hall;     // Hall index, or -1 for events that touch every hall
+        private final long seq;
+
+        Event(long time, int type, int hall, long seq) {
+            this.time = time;
+            this.type = type;
+            this.hall = hall;
+            this.seq = seq;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time) return Long.compare(time, other.time);
+            if (type != other.type) return Integer.compare(type, other.type);
+            return Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Poisson arrivals whose rate jumps while classes let out. Each surge is a window of
+ * clock time (written the way convertTo12hrClock prints it, e.g. "11:50 AM") and
+ * a multiplier on the base rate. Overlapping surges multiply.
+ */
+public class SurgeArrivals implements ArrivalModel {
+    private final double baseRate;      // Expected diners per tick outside any surge
+    private final List<long[]> surges = new ArrayList<>();      // {from, to} in simulation time
+    private final List<Double> multipliers = new ArrayList<>(); // Rate multiplier for each surge
+
+    /**
+     * Constructor sets the rate outside any surge.
+     * @param baseRate the expected number of diners per tick
+     */
+    public SurgeArrivals(double baseRate) {
+        if (!(baseRate >= 0)) throw new IllegalArgumentException("baseRate must not be negative");
+        this.baseRate = baseRate;
+    }
+
+    /**
+     * Adds a surge window.
+     * @param from the clock time the surge starts, e.g. "11:50 AM"
+     * @param to the clock time the surge ends (exclusive)
+     * @param multiplier how many times the base rate arrives during the surge
+     * @return this model, for chaining
+     */
+    public SurgeArrivals addSurge(String from, String to, double multiplier) {
+        if (!(multiplier >= 0)) throw new IllegalArgumentException("multiplier must not be negative");
+        this.surges.add(new long[] {Program.parse12hrClock(from), Program.parse12hrClock(to)});
+        this.multipliers.add(multiplier);
+        return this;
+    }
+
+    /**
+     * Builds the usual weekday lunch rush: morning classes end at 11:50 AM (MWF) and
+     * 12:15 PM (TTh), and early afternoon classes start at 1:15 PM.
+     * @param baseRate the expected number of diners per tick outside the rush
+     * @return the surge model
+     */
+    public static SurgeArrivals lunchRush(double baseRate) {
+        return new SurgeArrivals(baseRate)
+            .addSurge("11:50 AM", "12:10 PM", 3.0)
+            .addSurge("12:15 PM", "12:35 PM", 2.5)
+            .addSurge("12:50 PM", "01:10 PM", 1.5);
+    }
+
+    public int arrivals(long simTime, RandomGenerator random) {
+        return PoissonArrivals.sample(rate(simTime), random);
+    }
+
+    /**
+     * Returns the expected arrivals for the tick starting at simTime.
+     * @param simTime the start of the tick
+     * @return the expected number of diners
+     */
+    public double rate(long simTime) {
+        double rate = this.baseRate;
+        for (int i = 0; i < surges.size(); i++) {
+            long[] window = surges.get(i);
+            if (simTime >= window[0] && simTime < window[1]) rate *= multipliers.get(i);
+        }
+        return rate;
+    }
+}
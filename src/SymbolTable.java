@@ -0,0 +1,118 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Global dictionary mapping names (dining halls, dishes) to dense int IDs and back.
+ * Each distinct name is stored once, no matter how many users rate it, so the rest of
+ * the system can compare and index by int instead of hashing strings.
+ *
+ * Names are normalized once on first sight (halls are lowercased and trimmed, dishes
+ * trimmed) and each raw spelling is remembered, so "Frary", " frary" and "frary" all
+ * resolve to the same ID without normalizing again. The first spelling of each name
+ * (trimmed) is kept for display and for writing names back out, so "Frary" is not
+ * saved as "frary". Lookups never lock; only the first insertion of a new name does.
+ */
+public class SymbolTable {
+    public static final SymbolTable HALLS = new SymbolTable(s -> s.toLowerCase().trim());  // Dining hall names
+    public static final SymbolTable DISHES = new SymbolTable(String::trim);   // Dish names
+
+    private static final int MAX_ALIASES = 4096;    // Cap on remembered raw spellings per table
+
+    private final UnaryOperator<String> normalizer;
+    private final ConcurrentHashMap<String, Integer> ids;   // Canonical name or raw spelling -> ID
+    private volatile String[] names;    // ID -> canonical name
+    private volatile String[] displays; // ID -> first spelling seen, trimmed
+    private volatile int size;          // Number of IDs assigned
+    private int aliases;                // Raw spellings remembered so far
+
+    /**
+     * Constructor initializes an empty table.
+     * @param normalizer turns a raw spelling into its canonical name
+     */
+    public SymbolTable(UnaryOperator<String> normalizer) {
+        this.normalizer = normalizer;
+        this.ids = new ConcurrentHashMap<>();
+        this.names = new String[64];
+        this.displays = new String[64];
+        this.size = 0;
+        this.aliases = 0;
+    }
+
+    /**
+     * Returns the ID for a name, assigning the next free ID if it is new.
+     * @param raw the name as typed or read from the CSV
+     * @return the name's ID
+     */
+    public int intern(String raw) {
+        Integer id = ids.get(raw);  // Fast path: already seen this exact spelling
+        if (id != null) return id;
+
+        String canonical = normalizer.apply(raw);
+        synchronized (this) {
+            id = ids.get(canonical);
+            if (id == null) {
+                id = size;  // IDs are dense, starting at 0
+                if (id == names.length) {
+                    names = Arrays.copyOf(names, id * 2);
+                    displays = Arrays.copyOf(displays, id * 2);
+                }
+                names[id] = canonical;
+                displays[id] = raw.trim();
+                size = id + 1;
+                ids.put(canonical, id); // Publish after the name is in place
+            }
+            remember(raw, canonical, id);
+        }
+        return id;
+    }
+
+    /**
+     * Looks up the ID for a name without adding it.
+     * @param raw the name as typed
+     * @return the name's ID, or -1 if it has never been interned
+     */
+    public int find(String raw) {
+        Integer id = ids.get(raw);
+        if (id != null) return id;
+
+        id = ids.get(normalizer.apply(raw));
+        if (id == null) return -1;
+        synchronized (this) {
+            remember(raw, null, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the canonical name for an ID.
+     * @param id the ID to look up
+     * @return the interned name
+     */
+    public String name(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Unknown symbol: " + id);
+        return names[id];
+    }
+
+    /**
+     * Returns the name for an ID as it was first spelled (e.g. "Frary" rather than "frary").
+     * @param id the ID to look up
+     * @return the first spelling seen, trimmed
+     */
+    public String display(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("Unknown symbol: " + id);
+        return displays[id];
+    }
+
+    /**
+     * Caches a raw spelling so the next lookup skips normalization. Caller holds the lock.
+     */
+    private void remember(String raw, String canonical, int id) {
+        if (raw.equals(canonical) || aliases >= MAX_ALIASES) return;
+        if (ids.putIfAbsent(raw, id) == null) aliases++;
+    }
+
+    public int size() { return this.size; }  // Number of distinct names
+}
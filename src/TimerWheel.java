@@ -0,0 +1,181 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Hierarchical timer wheel for expiring int keys (such as user IDs) in amortized O(1).
+ * Level 0 has one slot per tick; each level above covers 64 times the span of the one
+ * below (with one-second ticks: about a minute, an hour, three days, and six months).
+ * A timer sits in the coarsest slot that still tells it apart and is moved down a
+ * level each time its slot comes up, so every timer is touched at most once per
+ * level before it fires and nothing is ever scanned.
+ *
+ * Timers are kept in intrusive doubly linked lists held in int arrays indexed by key,
+ * so scheduling, cancelling, and firing allocate nothing once the arrays have grown.
+ * A timer never fires early, and fires at most one tick late. Not thread-safe.
+ */
+public class TimerWheel {
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;   // Slots per level
+    private static final int MASK = SLOTS - 1;
+    private static final int NONE = -1;
+
+    private final long tickMillis;  // Width of one level 0 slot (in ms)
+    private final int[] heads;      // [level * SLOTS + slot] -> first key in that slot
+    private int[] next;             // Key -> next key in its slot
+    private int[] prev;             // Key -> previous key in its slot
+    private int[] slotOf;           // Key -> slot it is in (NONE if not scheduled)
+    private long[] deadlines;       // Key -> tick at which it fires
+    private long currentTick;       // Last tick processed
+    private int size;               // Timers scheduled
+
+    /**
+     * Constructor initializes an empty wheel.
+     * @param tickMillis the resolution of the wheel (in ms)
+     * @param startMillis the current time (in ms)
+     */
+    public TimerWheel(long tickMillis, long startMillis) {
+        if (tickMillis <= 0) throw new IllegalArgumentException("tickMillis must be positive");
+        this.tickMillis = tickMillis;
+        this.heads = new int[LEVELS * SLOTS];
+        Arrays.fill(this.heads, NONE);
+        this.next = new int[0];
+        this.prev = new int[0];
+        this.slotOf = new int[0];
+        this.deadlines = new long[0];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Schedules a key to fire at a time, replacing any timer it already has.
+     * A deadline in the past fires on the next tick.
+     * @param key the key (a non-negative int)
+     * @param deadlineMillis when it should fire (in ms)
+     */
+    public void schedule(int key, long deadlineMillis) {
+        if (key < 0) throw new IllegalArgumentException("key must be non-negative");
+        ensureCapacity(key);
+        cancel(key);
+        long tick = (deadlineMillis + tickMillis - 1) / tickMillis;  // Round up so it never fires early
+        deadlines[key] = Math.max(tick, currentTick + 1);   // The current tick has already been processed
+        insert(key);
+        size++;
+    }
+
+    /**
+     * Removes a key's timer.
+     * @param key the key
+     * @return true if it had one
+     */
+    public boolean cancel(int key) {
+        if (key < 0 || key >= slotOf.length || slotOf[key] == NONE) return false;
+        unlink(key);
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks whether a key has a timer.
+     * @param key the key
+     * @return true if it is scheduled
+     */
+    public boolean isScheduled(int key) {
+        return key >= 0 && key < slotOf.length && slotOf[key] != NONE;
+    }
+
+    /**
+     * Moves the clock forward, firing every timer that is due.
+     * @param nowMillis the current time (in ms); earlier times are ignored
+     * @param onExpire called with each key that fires (it may schedule or cancel keys)
+     * @return the number of timers fired
+     */
+    public int advance(long nowMillis, IntConsumer onExpire) {
+        long target = nowMillis / tickMillis;
+        int fired = 0;
+        while (currentTick < target) {
+            if (size == 0) {    // Nothing to fire: jump straight there
+                currentTick = target;
+                break;
+            }
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {  // Coarsest first, so timers can fall several levels
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> (SLOT_BITS * level)) & MASK));
+                }
+            }
+            int slot = (int) (currentTick & MASK);
+            int key;
+            while ((key = heads[slot]) != NONE) {
+                unlink(key);
+                if (deadlines[key] > currentTick) { // Parked in a clamped slot: file it again
+                    insert(key);
+                    continue;
+                }
+                size--;
+                fired++;
+                onExpire.accept(key);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Re-files every timer in a slot one level (or more) down.
+     */
+    private void cascade(int level, int slot) {
+        int index = level * SLOTS + slot;
+        int key = heads[index];
+        heads[index] = NONE;
+        while (key != NONE) {
+            int following = next[key];
+            slotOf[key] = NONE;
+            insert(key);
+            key = following;
+        }
+    }
+
+    /**
+     * Files a key in the coarsest slot whose span still separates it from the current tick.
+     */
+    private void insert(int key) {
+        long deadline = deadlines[key];
+        long delta = deadline - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) level++;
+        long due = delta >= (1L << (SLOT_BITS * LEVELS)) ? currentTick + (1L << (SLOT_BITS * LEVELS)) - 1 : deadline;
+        int index = level * SLOTS + (int) ((due >>> (SLOT_BITS * level)) & MASK);
+        int head = heads[index];
+        next[key] = head;
+        prev[key] = NONE;
+        if (head != NONE) prev[head] = key;
+        heads[index] = key;
+        slotOf[key] = index;
+    }
+
+    /**
+     * Takes a key out of its slot's list.
+     */
+    private void unlink(int key) {
+        int index = slotOf[key];
+        if (prev[key] != NONE) next[prev[key]] = next[key];
+        else heads[index] = next[key];
+        if (next[key] != NONE) prev[next[key]] = prev[key];
+        slotOf[key] = NONE;
+    }
+
+    private void ensureCapacity(int key) {
+        if (key < slotOf.length) return;
+        int grown = Math.max(key + 1, Math.max(64, slotOf.length * 2));
+        int from = slotOf.length;
+        next = Arrays.copyOf(next, grown);
+        prev = Arrays.copyOf(prev, grown);
+        deadlines = Arrays.copyOf(deadlines, grown);
+        slotOf = Arrays.copyOf(slotOf, grown);
+        Arrays.fill(slotOf, from, grown, NONE);
+    }
+
+    public int size() { return this.size; }    // Timers scheduled
+    public long getTickMillis() { return this.tickMillis; }    // Resolution (in ms)
+}
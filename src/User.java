@@ -1,40 +1,149 @@
+import java.util.Arrays;
 import java.util.HashMap;
 
 /**
  * @author Tommy Ryan & Miles Chiang
- * 
+ *
  * Represents a user in the system, implementing the InterfaceUser.
  * Each user has a unique ID, a set of ratings for dishes in various dining halls,
  * and an entry time for tracking their status in the system.
+ *
+ * Ratings are stored compactly: hall and dish names are interned to int IDs in the
+ * shared SymbolTables, each (hall, dish) pair is packed into one int key, and the
+ * keys are kept sorted in an array alongside parallel arrays of byte ratings and the
+ * day each rating was made (a 16-bit day number, so recency costs 2 bytes a rating).
+ * Ratings loaded from the CSV have no time, and are given day 0.
  */
 public class User implements InterfaceUser {
+    public static final int MAX_RATING = 5;     // Ratings are 1 to 5 stars
+    public static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    private static final int MAX_DAY = 0xFFFF;  // Last day a short can hold (in 2149)
+    private static final int DISH_BITS = 24;    // Low bits of a key hold the dish ID
+    private static final int DISH_MASK = (1 << DISH_BITS) - 1;
+    private static final int MAX_HALLS = 1 << (31 - DISH_BITS);    // High bits hold the hall ID (sign bit unused)
+    private static final int[] NO_KEYS = new int[0];
+    private static final byte[] NO_RATINGS = new byte[0];
+    private static final short[] NO_DAYS = new short[0];
+
     private final int userID;
-    private HashMap<String, HashMap<String, Integer>> ratings;
+    private int[] keys;         // Sorted packed (hall, dish) keys
+    private byte[] ratings;     // Rating for each key
+    private short[] days;       // Day each rating was made (unsigned days since 1970-01-01)
+    private int size;           // Number of ratings in use
     private long entryTime;
+    private final RatingIndex ratingIndex;  // Shared rating aggregates (null if not tracked)
 
     /**
-     * Constructor initializes the user with a unique ID and an empty ratings map.
+     * Constructor initializes the user with a unique ID and no ratings.
      * @param userID the unique ID for the user
      */
     public User(int userID) {
+        this(userID, null);
+    }
+
+    /**
+     * Constructor initializes the user with a unique ID and a shared rating index
+     * that is kept in sync with every rating this user adds or removes.
+     * @param userID the unique ID for the user
+     * @param ratingIndex the shared rating index, or null to skip indexing
+     */
+    public User(int userID, RatingIndex ratingIndex) {
         this.userID = userID;
-        this.ratings = new HashMap<>();
+        this.keys = NO_KEYS;    // Most simulated diners never rate, so start with nothing
+        this.ratings = NO_RATINGS;
+        this.days = NO_DAYS;
+        this.size = 0;
         this.entryTime = -1;
+        this.ratingIndex = ratingIndex;
     }
-    
+
     /**
-     * Adds a rating for a dish in a specific dining hall.
-     * If the dining hall does not exist in the ratings map, it creates a new entry.
+     * Adds a rating made now for a dish in a specific dining hall, replacing any earlier rating.
      * @param diningHall the name of the dining hall
      * @param dish the name of the dish
-     * @param rating the rating for the dish
+     * @param rating the rating for the dish (1 to MAX_RATING)
      */
     public void rate(String diningHall, String dish, int rating) {
-        String hallKey = diningHall.toLowerCase().trim();   // Normalize the dining hall name
-        if (!ratings.containsKey(hallKey)) {    // Check if the dining hall exists
-            ratings.put(hallKey, new HashMap<>());
+        rate(diningHall, dish, rating, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a rating for a dish in a specific dining hall, replacing any earlier rating.
+     * @param diningHall the name of the dining hall
+     * @param dish the name of the dish
+     * @param rating the rating for the dish (1 to MAX_RATING)
+     * @param time when the rating was made (in ms since 1970, 0 if unknown)
+     */
+    public void rate(String diningHall, String dish, int rating, long time) {
+        rate(SymbolTable.HALLS.intern(diningHall), SymbolTable.DISHES.intern(dish), rating, time);  // Normalized once per spelling
+    }
+
+    /**
+     * Adds a rating using symbol table IDs, replacing any earlier rating.
+     * @param hallId the dining hall's SymbolTable.HALLS ID
+     * @param dishId the dish's SymbolTable.DISHES ID
+     * @param rating the rating for the dish (1 to MAX_RATING)
+     * @param time when the rating was made (in ms since 1970, 0 if unknown)
+     */
+    public void rate(int hallId, int dishId, int rating, long time) {
+        if (rating < 1 || rating > MAX_RATING) {
+            throw new IllegalArgumentException("Rating out of range: " + rating);
+        }
+        long day = Math.floorDiv(time, DAY_MILLIS);
+        if (day < 0 || day > MAX_DAY) {
+            throw new IllegalArgumentException("Rating time out of range: " + time);
+        }
+        int key = pack(hallId, dishId);
+
+        int old = 0;
+        int oldDay = 0;
+        int pos = Arrays.binarySearch(keys, 0, size, key);
+        if (pos >= 0) {
+            old = ratings[pos]; // Replace the existing rating
+            oldDay = getDayAt(pos);
+        } else {
+            pos = -pos - 1;     // Insert in sorted position
+            if (size == keys.length) {
+                int grown = Math.max(4, size + (size >> 1));
+                keys = Arrays.copyOf(keys, grown);
+                ratings = Arrays.copyOf(ratings, grown);
+                days = Arrays.copyOf(days, grown);
+            }
+            System.arraycopy(keys, pos, keys, pos + 1, size - pos);
+            System.arraycopy(ratings, pos, ratings, pos + 1, size - pos);
+            System.arraycopy(days, pos, days, pos + 1, size - pos);
+            keys[pos] = key;
+            size++;
+        }
+        ratings[pos] = (byte) rating;
+        days[pos] = (short) day;
+
+        if (ratingIndex != null) {
+            ratingIndex.update(key >>> DISH_BITS, key & DISH_MASK, old, oldDay, rating, (int) day);  // Keep aggregates in sync
         }
-        ratings.get(hallKey).put(dish.trim(), rating);  // Add the rating for the dish
+    }
+
+    /**
+     * Removes the rating for a dish in a specific dining hall.
+     * @param diningHall the name of the dining hall
+     * @param dish the name of the dish
+     * @return true if a rating was removed, false if none existed
+     */
+    public boolean removeRating(String diningHall, String dish) {
+        int pos = find(diningHall, dish);
+        if (pos < 0) return false;  // Dish was never rated here
+
+        int key = keys[pos];
+        int old = ratings[pos];
+        int oldDay = getDayAt(pos);
+        System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+        System.arraycopy(ratings, pos + 1, ratings, pos, size - pos - 1);
+        System.arraycopy(days, pos + 1, days, pos, size - pos - 1);
+        size--;
+        if (ratingIndex != null) {
+            ratingIndex.update(key >>> DISH_BITS, key & DISH_MASK, old, oldDay, 0, 0);  // Keep aggregates in sync
+        }
+        return true;
     }
 
     /**
@@ -43,12 +152,82 @@ public class User implements InterfaceUser {
      * @param dish the name of the dish
      * @return the rating for the dish, or -1 if not found
      */
+    public int getRating(String diningHall, String dish) {
+        int pos = find(diningHall, dish);
+        return pos < 0 ? -1 : ratings[pos];
+    }
+
+    /**
+     * Returns this user's ratings at one dining hall.
+     * @param diningHall the name of the dining hall
+     * @return a new map of dish to rating (empty if none)
+     */
+    public HashMap<String, Integer> getHallRatings(String diningHall) {
+        HashMap<String, Integer> result = new HashMap<>();
+        int hallId = SymbolTable.HALLS.find(diningHall);
+        if (hallId < 0) return result;
+
+        int pos = Arrays.binarySearch(keys, 0, size, pack(hallId, 0));
+        if (pos < 0) pos = -pos - 1;    // First key at this hall
+        for (; pos < size && (keys[pos] >>> DISH_BITS) == hallId; pos++) {
+            result.put(SymbolTable.DISHES.name(keys[pos] & DISH_MASK), (int) ratings[pos]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns every rating as nested maps (hall -> dish -> rating), for compatibility.
+     * The maps are a fresh copy; changing them does not change this user's ratings.
+     * @return a new map of all ratings
+     */
+    public HashMap<String, HashMap<String, Integer>> getRatings() {
+        HashMap<String, HashMap<String, Integer>> result = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String hallKey = SymbolTable.HALLS.name(keys[i] >>> DISH_BITS);
+            result.computeIfAbsent(hallKey, k -> new HashMap<>())
+                .put(SymbolTable.DISHES.name(keys[i] & DISH_MASK), (int) ratings[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the array position of a rating without interning any new names.
+     * @return the position, or -1 if there is no such rating
+     */
+    private int find(String diningHall, String dish) {
+        int hallId = SymbolTable.HALLS.find(diningHall);
+        int dishId = SymbolTable.DISHES.find(dish);
+        if (hallId < 0 || dishId < 0) return -1;   // Never seen by anyone
+        int pos = Arrays.binarySearch(keys, 0, size, pack(hallId, dishId));
+        return pos < 0 ? -1 : pos;
+    }
+
+    /**
+     * Packs a hall ID and dish ID into one sortable key.
+     */
+    private static int pack(int hallId, int dishId) {
+        if (hallId >= MAX_HALLS || dishId > DISH_MASK) {
+            throw new IllegalStateException("Too many distinct halls or dishes to pack");
+        }
+        return (hallId << DISH_BITS) | dishId;
+    }
+
+    /**
+     * Compares this user with another user based on their entry time.
+     * @param other the other user to compare with
+     * @return a negative integer, zero, or a positive integer as this user is less than,
+     *         equal to, or greater than the specified user
+     */
     @Override
     public int compareTo(InterfaceUser other) {
         return Long.compare(this.entryTime, other.getEntryTime());
     }
 
-    public HashMap<String, HashMap<String, Integer>> getRatings() { return this.ratings;} // Getter for ratings
+    public int getRatingCount() { return this.size; }  // Getter for number of ratings
+    public int getHallIdAt(int i) { return this.keys[i] >>> DISH_BITS; }   // Hall ID of the i-th rating
+    public int getDishIdAt(int i) { return this.keys[i] & DISH_MASK; }    // Dish ID of the i-th rating
+    public int getRatingAt(int i) { return this.ratings[i]; }   // Value of the i-th rating
+    public int getDayAt(int i) { return Short.toUnsignedInt(this.days[i]); }    // Day the i-th rating was made
     public void setEntryTime(long entryTime) { this.entryTime = entryTime; }  // Setter for entry time
     public long getEntryTime() { return this.entryTime; } // Getter for entry time
     public int getUserID() { return this.userID; }    // Getter for user ID
@@ -0,0 +1,39 @@
+/**
+ * @author Tommy Ryan & Miles Chiang
+ *
+ * Lower bound of the Wilson score interval. The average is rescaled from 1-5 stars
+ * to a 0-1 "approval" share, the pessimistic end of its confidence interval is taken,
+ * and that is mapped back to stars. Few ratings mean a wide interval and a low score.
+ */
+public class WilsonScoring implements ScoringStrategy {
+    public static final double DEFAULT_Z = 1.96;    // 95% confidence
+
+    private final double z;
+
+    /**
+     * Constructor uses 95% confidence.
+     */
+    public WilsonScoring() {
+        this(DEFAULT_Z);
+    }
+
+    /**
+     * Constructor sets the confidence level.
+     * @param z the normal quantile (1.96 for 95%)
+     */
+    public WilsonScoring(double z) {
+        if (z < 0) throw new IllegalArgumentException("z must not be negative");
+        this.z = z;
+    }
+
+    public double score(DishStats stats, double prior) {
+        double n = stats.getCount();
+        double p = Math.min(1, Math.max(0, (stats.getAverage() - 1) / 4));   // Stars -> share
+        double z2 = z * z;
+        double lower = (p + z2 / (2 * n) - z * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n))) / (1 + z2 / n);
+        return 1 + 4 * lower;   // Share -> stars
+    }
+
+    public String getName() { return "Wilson Lower Bound"; }
+    public double getZ() { return this.z; }    // Normal quantile
+}